@@ -0,0 +1,38 @@
+package memorygame.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the PairEngine benchmarks with the GC profiler attached, so every
+ * result has the throughput together with the allocation rate, and writes
+ * the results as CSV. Compare them with the committed baseline using
+ * CompareResults.
+ * <p>
+ * Usage: java -jar benchmarks/target/benchmarks.jar [regexp] [results.csv]
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class BenchmarkMain
+{
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws RunnerException
+    {
+        String include = args.length > 0 ? args[0] : "memorygame\\.bench\\..*";
+        String results = args.length > 1 ? args[1] : "results.csv";
+
+        Options options = new OptionsBuilder()
+            .include(include)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.CSV)
+            .result(results)
+            .build();
+        new Runner(options).run();
+    }
+}
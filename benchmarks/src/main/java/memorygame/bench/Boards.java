@@ -0,0 +1,74 @@
+package memorygame.bench;
+
+import java.util.Arrays;
+import memorygame.PairEngine;
+
+/**
+ * Helpers for finding cells with known outcomes on a dealt board.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class Boards
+{
+    private Boards() {}
+
+    /**
+     * Return the cells of every pair of the board, the two cells of a
+     * pair next to each other.
+     * @param eng A board on which nothing is matched yet.
+     * @return The cell indexes of the pairs.
+     */
+    static int[] pairCells(PairEngine eng)
+    {
+        int cols = eng.getCols();
+        int cells = eng.getRows() * cols;
+        //The cell where every card id was seen first.
+        int[] seen = new int[cells / 2];
+        Arrays.fill(seen, -1);
+        int[] pairs = new int[cells];
+        int next = 0;
+        for(int i = 0; i < cells; i++) {
+            int card = eng.getCardAt(i / cols, i % cols);
+            if(seen[card] < 0) {
+                seen[card] = i;
+            } else {
+                pairs[next++] = seen[card];
+                pairs[next++] = i;
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Return two cells of the same card.
+     * @param eng A board on which nothing is matched yet.
+     * @return The two cell indexes.
+     */
+    static int[] findPair(PairEngine eng)
+    {
+        int[] pairs = pairCells(eng);
+        return new int[] { pairs[0], pairs[1] };
+    }
+
+    /**
+     * Return two unmatched cells with different cards.
+     * @param eng The board to be searched.
+     * @return The two cell indexes.
+     */
+    static int[] findMiss(PairEngine eng)
+    {
+        int cols = eng.getCols();
+        int cells = eng.getRows() * cols;
+        for(int i = 0; i < cells; i++) {
+            int a = eng.getCardAt(i / cols, i % cols);
+            for(int j = i + 1; a >= 0 && j < cells; j++) {
+                int b = eng.getCardAt(j / cols, j % cols);
+                if(b >= 0 && b != a) {
+                    return new int[] { i, j };
+                }
+            }
+        }
+        throw new IllegalStateException("No two different cards left on the board");
+    }
+}
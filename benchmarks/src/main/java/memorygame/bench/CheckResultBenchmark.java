@@ -0,0 +1,195 @@
+package memorygame.bench;
+
+import java.util.concurrent.TimeUnit;
+import memorygame.BoardType;
+import memorygame.PairEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the branches of PairEngine.checkResult.
+ * The engine only returns to its initial state after the second card of
+ * an attempt, so the first flip is measured together with the miss and
+ * the hit that follow it. A hit can be done only once per pair, so it is
+ * measured in single shots over all the pairs of a large board.
+ * The same moves are also opened with PairEngine.checkCells, so that a
+ * batch can be compared with the loop over checkResult which it replaces.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckResultBenchmark
+{
+    private final static int LARGE_ROWS = 1000, LARGE_COLS = 1000;
+    private final static int LARGE_PAIRS = LARGE_ROWS*LARGE_COLS/2;
+
+    /**
+     * A board with one matched pair and two cells that do not match.
+     */
+    @State(Scope.Thread)
+    public static class MissState
+    {
+        @Param({"BEGINNER", "INTERMEDIATE", "ADVANCED"})
+        public BoardType type;
+
+        PairEngine eng;
+        int firstR, firstC, secondR, secondC, matchedR, matchedC;
+
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            eng = new PairEngine(type.getRows(), type.getCols(), 1);
+            int cols = type.getCols();
+            int[] pair = Boards.findPair(eng);
+            eng.checkResult(pair[0] / cols, pair[0] % cols);
+            eng.checkResult(pair[1] / cols, pair[1] % cols);
+            matchedR = pair[0] / cols;
+            matchedC = pair[0] % cols;
+            int[] miss = Boards.findMiss(eng);
+            firstR = miss[0] / cols;
+            firstC = miss[0] % cols;
+            secondR = miss[1] / cols;
+            secondC = miss[1] % cols;
+        }
+    }
+
+    /**
+     * A fresh large board for every iteration, with the cells of every pair.
+     */
+    @State(Scope.Thread)
+    public static class HitState
+    {
+        PairEngine eng;
+        int[] pairs;
+        int next;
+
+        @Setup(Level.Trial)
+        public void findPairs()
+        {
+            pairs = Boards.pairCells(new PairEngine(LARGE_ROWS, LARGE_COLS, 1));
+        }
+
+        @Setup(Level.Iteration)
+        public void newBoard()
+        {
+            eng = new PairEngine(LARGE_ROWS, LARGE_COLS, 1);
+            next = 0;
+        }
+    }
+
+    /**
+     * The miss of MissState as a batch of two cells.
+     */
+    @State(Scope.Thread)
+    public static class MissBatchState extends MissState
+    {
+        int[] cells, results;
+
+        @Setup(Level.Trial)
+        public void makeBatch()
+        {
+            int cols = type.getCols();
+            cells = new int[] {firstR*cols + firstC, secondR*cols + secondC};
+            results = new int[cells.length];
+        }
+    }
+
+    /**
+     * A fresh large board for every invocation, with the cells of every
+     * pair in the order in which they are opened.
+     */
+    @State(Scope.Thread)
+    public static class AllPairsState
+    {
+        PairEngine eng;
+        int[] pairs, results;
+
+        @Setup(Level.Trial)
+        public void findPairs()
+        {
+            pairs = Boards.pairCells(new PairEngine(LARGE_ROWS, LARGE_COLS, 1));
+            results = new int[pairs.length];
+        }
+
+        @Setup(Level.Invocation)
+        public void newBoard()
+        {
+            eng = new PairEngine(LARGE_ROWS, LARGE_COLS, 1);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int firstFlipThenMiss(MissState s)
+    {
+        return s.eng.checkResult(s.firstR, s.firstC) + s.eng.checkResult(s.secondR, s.secondC);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int rejected(MissState s)
+    {
+        return s.eng.checkResult(s.matchedR, s.matchedC);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, batchSize = LARGE_PAIRS)
+    @Measurement(iterations = 5, batchSize = LARGE_PAIRS)
+    public int firstFlipThenHit(HitState s)
+    {
+        int a = s.pairs[s.next++];
+        int b = s.pairs[s.next++];
+        return s.eng.checkResult(a / LARGE_COLS, a % LARGE_COLS) + s.eng.checkResult(b / LARGE_COLS, b % LARGE_COLS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int[] firstFlipThenMissBatch(MissBatchState s)
+    {
+        s.eng.checkCells(s.cells, s.cells.length, s.results);
+        return s.results;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public int[] allPairsOneByOne(AllPairsState s)
+    {
+        int[] pairs = s.pairs;
+        for(int i = 0; i < pairs.length; i++) {
+            s.results[i] = s.eng.checkResult(pairs[i] / LARGE_COLS, pairs[i] % LARGE_COLS);
+        }
+        return s.results;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public int[] allPairsInOneBatch(AllPairsState s)
+    {
+        s.eng.checkCells(s.pairs, s.pairs.length, s.results);
+        return s.results;
+    }
+}
@@ -0,0 +1,96 @@
+package memorygame.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two CSV result files written by BenchmarkMain and prints the
+ * change of the throughput and of the normalized allocation rate for
+ * every benchmark found in both files.
+ * <p>
+ * Usage: java -cp benchmarks/target/benchmarks.jar memorygame.bench.CompareResults
+ * benchmarks/baseline.csv results.csv
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class CompareResults
+{
+    private CompareResults() {}
+
+    public static void main(String[] args) throws IOException
+    {
+        if(args.length != 2) {
+            System.err.println("Usage: CompareResults <baseline.csv> <results.csv>");
+            System.exit(1);
+        }
+        Map<String, String[]> baseline = read(Paths.get(args[0]));
+        Map<String, String[]> current = read(Paths.get(args[1]));
+
+        System.out.printf("%-90s %16s %16s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for(Map.Entry<String, String[]> entry : current.entrySet()) {
+            String[] row = baseline.get(entry.getKey());
+            if(row == null) {
+                continue;
+            }
+            double before = Double.parseDouble(row[4]);
+            double after = Double.parseDouble(entry.getValue()[4]);
+            String change = before == 0 ? "n/a" : String.format("%+8.1f%%", (after - before) * 100 / before);
+            System.out.printf("%-90s %16.3f %16.3f %9s  %s%n", entry.getKey(), before, after, change, entry.getValue()[6]);
+        }
+    }
+
+    /**
+     * Read the primary scores and the allocation rates of a result file.
+     * @param file The CSV file.
+     * @return The rows, keyed by the benchmark name and its parameters.
+     */
+    private static Map<String, String[]> read(Path file) throws IOException
+    {
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file);
+        for(String line : lines.subList(1, lines.size())) {
+            String[] row = split(line);
+            String name = row[0];
+            if(name.contains(":") && !name.endsWith("gc.alloc.rate.norm")) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(name);
+            for(int i = 7; i < row.length; i++) {
+                key.append(' ').append(row[i]);
+            }
+            rows.put(key.toString(), row);
+        }
+        return rows;
+    }
+
+    /**
+     * Split a line of the CSV file into its fields.
+     * @param line The line to be split.
+     * @return The fields without quotes.
+     */
+    private static String[] split(String line)
+    {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for(char ch : line.toCharArray()) {
+            if(ch == '"') {
+                quoted = !quoted;
+            } else if(ch == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,66 @@
+package memorygame.bench;
+
+import java.util.concurrent.TimeUnit;
+import memorygame.BoardType;
+import memorygame.PairEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the creation of a PairEngine, which includes dealing the board.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineConstructionBenchmark
+{
+    /**
+     * The seed of the next deal, so that every board is different.
+     */
+    @State(Scope.Thread)
+    public static class Seed
+    {
+        long next;
+    }
+
+    /**
+     * The BoardType of the boards to be created.
+     */
+    @State(Scope.Thread)
+    public static class Type
+    {
+        @Param({"BEGINNER", "INTERMEDIATE", "ADVANCED"})
+        public BoardType type;
+    }
+
+    @Benchmark
+    public PairEngine construct(Type t, Seed s)
+    {
+        return new PairEngine(t.type.getRows(), t.type.getCols(), s.next++);
+    }
+
+    @Benchmark
+    public PairEngine constructLarge(Seed s)
+    {
+        return new PairEngine(1000, 1000, s.next++);
+    }
+
+    @Benchmark
+    public PairEngine constructLazyLarge(Seed s)
+    {
+        return PairEngine.lazy(1000, 1000, s.next++);
+    }
+}
@@ -0,0 +1,74 @@
+package memorygame.bench;
+
+import java.util.concurrent.TimeUnit;
+import memorygame.BoardType;
+import memorygame.PairEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the read-only methods of PairEngine on a board in the middle
+ * of a game, with half of the pairs matched.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark
+{
+    @Param({"BEGINNER", "INTERMEDIATE", "ADVANCED"})
+    public BoardType type;
+
+    private PairEngine eng;
+    private int cells, cols, next;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        eng = new PairEngine(type.getRows(), type.getCols(), 1);
+        cols = type.getCols();
+        cells = type.getRows() * cols;
+        int[] pairs = Boards.pairCells(eng);
+        for(int i = 0; i < pairs.length / 2; i += 2) {
+            eng.checkResult(pairs[i] / cols, pairs[i] % cols);
+            eng.checkResult(pairs[i + 1] / cols, pairs[i + 1] % cols);
+        }
+    }
+
+    @Benchmark
+    public boolean isWon()
+    {
+        return eng.isWon();
+    }
+
+    @Benchmark
+    public String getValueAt()
+    {
+        int cell = next;
+        next = cell + 1 == cells ? 0 : cell + 1;
+        return eng.getValueAt(cell / cols, cell % cols);
+    }
+
+    @Benchmark
+    public int getCardAt()
+    {
+        int cell = next;
+        next = cell + 1 == cells ? 0 : cell + 1;
+        return eng.getCardAt(cell / cols, cell % cols);
+    }
+}
@@ -0,0 +1,115 @@
+package memorygame;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+
+/**
+ * Packs all images of a folder into one card atlas file, which is
+ * read by CardAtlas. The images are placed in rows, left to right,
+ * and named by their path in the folder without the extension,
+ * for example "active/3" or "inactive/back".
+ * It is run once when the game is built.
+ * <p>
+ * Usage: java -cp . memorygame.AtlasPacker &lt;images folder&gt; &lt;atlas file&gt;
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class AtlasPacker
+{
+    //The atlas is kept narrow enough to be read one row at a time.
+    private final static int MAX_WIDTH = 2048;
+
+    private AtlasPacker() {}
+
+    public static void main(String[] args) throws IOException
+    {
+        if(args.length != 2) {
+            System.err.println("Usage: AtlasPacker <images folder> <atlas file>");
+            System.exit(1);
+        }
+        Path folder = Paths.get(args[0]);
+        Path atlas = Paths.get(args[1]);
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(folder)) {
+            files = walk.filter(p -> p.toString().endsWith(".jpg") || p.toString().endsWith(".png"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+
+        List<String> names = new ArrayList<>();
+        List<BufferedImage> images = new ArrayList<>();
+        for(Path file : files) {
+            String name = folder.relativize(file).toString().replace('\\', '/');
+            names.add(name.substring(0, name.lastIndexOf('.')));
+            images.add(ImageIO.read(file.toFile()));
+        }
+
+        //Place the images in rows.
+        int[][] rects = new int[images.size()][];
+        int x = 0, y = 0, rowHeight = 0, width = 0;
+        for(int i = 0; i < images.size(); i++) {
+            BufferedImage image = images.get(i);
+            if(x + image.getWidth() > MAX_WIDTH && x > 0) {
+                x = 0;
+                y += rowHeight;
+                rowHeight = 0;
+            }
+            rects[i] = new int[] { x, y, image.getWidth(), image.getHeight() };
+            x += image.getWidth();
+            rowHeight = Math.max(rowHeight, image.getHeight());
+            width = Math.max(width, x);
+        }
+        int height = y + rowHeight;
+
+        byte[] pixels = new byte[width * height * 3];
+        for(int i = 0; i < images.size(); i++) {
+            BufferedImage image = images.get(i);
+            int[] rect = rects[i];
+            for(int iy = 0; iy < rect[3]; iy++) {
+                for(int ix = 0; ix < rect[2]; ix++) {
+                    int rgb = image.getRGB(ix, iy);
+                    int offset = ((rect[1] + iy) * width + rect[0] + ix) * 3;
+                    pixels[offset] = (byte)(rgb >> 16);
+                    pixels[offset + 1] = (byte)(rgb >> 8);
+                    pixels[offset + 2] = (byte)rgb;
+                }
+            }
+        }
+
+        if(atlas.getParent() != null) {
+            Files.createDirectories(atlas.getParent());
+        }
+        try (OutputStream file = Files.newOutputStream(atlas);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(CardAtlas.MAGIC);
+            out.writeInt(CardAtlas.VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(names.size());
+            for(int i = 0; i < names.size(); i++) {
+                byte[] name = names.get(i).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                for(int value : rects[i]) {
+                    out.writeInt(value);
+                }
+            }
+            out.write(pixels);
+        }
+        System.out.println("Packed " + names.size() + " images into " + atlas + " (" + width + "x" + height + ")");
+    }
+}
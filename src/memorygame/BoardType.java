@@ -3,8 +3,13 @@ package memorygame;
 
 /**
  * Enumeration class BoardType:
- * Used to store three types of boards and to keep
+ * Used to store the types of boards and to keep
  * their values for the rows and the columns.
+ * New types are only added at the end, because the saved
+ * games and the journal store the position of the type.
+ * Types which are not playable, like HUGE, are only used by the
+ * benchmarks and the simulations: they are not in the level menu
+ * and the EnginePool does not deal them ahead.
  * 
  * @author Daniel Krastev
  * @version 01/04/2016
@@ -15,20 +20,37 @@ public enum BoardType
 
     INTERMEDIATE(4,5),
 
-    ADVANCED(5,6);
+    ADVANCED(5,6),
+
+    EXPERT(16,20),
+
+    HUGE(500,500,false);
 
     private int rows;
     private int cols;
+    private boolean isPlayable;
 
     /**
-     * Construct new BoardType.
+     * Construct new playable BoardType.
      * @param rows The rows for the BoardType.
      * @param cols The columns for the BoardType.
      */
     private BoardType(int rows, int cols)
+    {
+        this(rows, cols, true);
+    }
+
+    /**
+     * Construct new BoardType.
+     * @param rows The rows for the BoardType.
+     * @param cols The columns for the BoardType.
+     * @param isPlayable True if the BoardType is offered to the player.
+     */
+    private BoardType(int rows, int cols, boolean isPlayable)
     {
         this.rows = rows;
         this.cols = cols;
+        this.isPlayable = isPlayable;
     }
 
     /**
@@ -48,4 +70,13 @@ public enum BoardType
     {
         return cols;	
     }
+
+    /**
+     * Return whether the BoardType is offered to the player.
+     * @return True if the BoardType is in the level menu.
+     */
+    public boolean isPlayable()
+    {
+        return isPlayable;
+    }
 }
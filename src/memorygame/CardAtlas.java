@@ -0,0 +1,127 @@
+package memorygame;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A deck of card images packed into one file by AtlasPacker.
+ * The file is memory-mapped when it is a plain file, and read in one bulk
+ * read when it is inside a jar, so the faces are built without looking up
+ * and decoding every image on its own.
+ * <p>
+ * The file starts with a header, followed by the pixels in RGB order,
+ * three bytes per pixel, row by row:
+ * <pre>
+ * int magic, int version, int width, int height, int count,
+ * count times: short nameLength, byte[nameLength] name, int x, int y, int w, int h
+ * </pre>
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class CardAtlas
+{
+    final static int MAGIC = 0x4D474131; //"MGA1"
+    final static int VERSION = 1;
+    final static String RESOURCE = "/memorygame/resources/images/cards.atlas";
+
+    private final ByteBuffer pixels;
+    private final int width;
+    //The rectangle of every image: x, y, width and height.
+    private final Map<String, int[]> index = new HashMap<>();
+
+    /**
+     * Read the header of an atlas.
+     * @param data The contents of the atlas file.
+     */
+    private CardAtlas(ByteBuffer data) throws IOException
+    {
+        if(data.getInt() != MAGIC || data.getInt() != VERSION) {
+            throw new IOException("Not a card atlas of version " + VERSION);
+        }
+        width = data.getInt();
+        int height = data.getInt();
+        int count = data.getInt();
+        for(int i = 0; i < count; i++) {
+            byte[] name = new byte[data.getShort()];
+            data.get(name);
+            int[] rect = { data.getInt(), data.getInt(), data.getInt(), data.getInt() };
+            index.put(new String(name, StandardCharsets.UTF_8), rect);
+        }
+        pixels = data.slice();
+        if(pixels.remaining() < (long)width * height * 3) {
+            throw new IOException("The card atlas is truncated");
+        }
+    }
+
+    /**
+     * Open the atlas from the resources.
+     * @return The atlas, or null if the game was built without one.
+     */
+    static CardAtlas load() throws IOException
+    {
+        URL url = CardAtlas.class.getResource(RESOURCE);
+        if(url == null) {
+            return null;
+        }
+        if("file".equals(url.getProtocol())) {
+            try {
+                return map(Paths.get(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            return new CardAtlas(ByteBuffer.wrap(in.readAllBytes()));
+        }
+    }
+
+    /**
+     * Memory-map an atlas file.
+     * @param file The atlas file.
+     * @return The atlas.
+     */
+    static CardAtlas map(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new CardAtlas(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Build one image of the atlas.
+     * @param name The name of the image, its path in the images folder without the extension.
+     * @return The image, or null if the atlas does not contain it.
+     */
+    BufferedImage getImage(String name)
+    {
+        int[] rect = index.get(name);
+        if(rect == null) {
+            return null;
+        }
+        int w = rect[2];
+        int h = rect[3];
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        byte[] row = new byte[w * 3];
+        int[] rgb = new int[w];
+        for(int y = 0; y < h; y++) {
+            pixels.get(((rect[1] + y) * width + rect[0]) * 3, row);
+            for(int x = 0; x < w; x++) {
+                rgb[x] = (row[3*x] & 0xFF) << 16 | (row[3*x + 1] & 0xFF) << 8 | (row[3*x + 2] & 0xFF);
+            }
+            image.setRGB(0, y, w, 1, rgb, 0, w);
+        }
+        return image;
+    }
+}
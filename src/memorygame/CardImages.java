@@ -0,0 +1,335 @@
+package memorygame;
+
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+import javax.swing.UIManager;
+
+/**
+ * A shared cache of the decoded card images. Every face and the back
+ * of the cards is decoded only once and the same Icon instances are
+ * used by all boards and games. The images can be loaded in the
+ * background when the game starts, so that opening a card never
+ * has to decode an image on the event dispatch thread.
+ * The images are taken from the card atlas when the game has been
+ * built with one, and from the separate image files otherwise.
+ * Cards with a higher id than the images get a face drawn by the
+ * FaceRenderer. Only the faces used most recently are kept, in a
+ * DrawnFaces, so a deck with thousands of pairs needs a bounded amount of memory.
+ * <p>
+ * All images are returned in the current card size. When the board is
+ * zoomed the images are scaled once to the new size, and the faces are
+ * drawn directly in it, so the memory follows the area on the screen.
+ * <p>
+ * The lock of the caches is held only to look up and to keep an image.
+ * Images are decoded, scaled and drawn outside of it, so the event
+ * dispatch thread never waits while the preloader decodes an image.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class CardImages
+{
+    private final static String PATH_IMAGES = "/memorygame/resources/images/";
+    private final static String ACTIVE = "active/";
+    private final static String INACTIVE = "inactive/";
+    private final static String BACK = "back";
+    //The number of different card faces in the resources.
+    final static int FACES = 15;
+    //The least number of drawn faces, active and inactive, which are kept in memory.
+    private final static int DRAWN_FACES = 256;
+
+    private final static Icon[] active = new Icon[FACES];
+    private final static Icon[] inactive = new Icon[FACES];
+    //The back and the disabled back, at BACK_ICON and DISABLED_BACK_ICON.
+    private final static int BACK_ICON = 0, DISABLED_BACK_ICON = 1;
+    private final static Icon[] backs = new Icon[2];
+    //The images scaled to the card size, when it is not the size of the images.
+    private final static Icon[] scaledActive = new Icon[FACES];
+    private final static Icon[] scaledInactive = new Icon[FACES];
+    private final static Icon[] scaledBacks = new Icon[2];
+    //The size of the cards, 0 while it is the size of the images.
+    private static int cardWidth, cardHeight;
+    //The number of times the card size has changed, so that an image made
+    //for a size which has changed in the meantime is not kept.
+    private static int sizeChanges;
+    //The drawn faces in the card size.
+    private final static DrawnFaces drawn = new DrawnFaces(DRAWN_FACES);
+
+    private CardImages() {}
+
+    /**
+     * Start loading all images on a background thread.
+     */
+    static void preload()
+    {
+        Thread loader = new Thread(() -> {
+            originalDisabledBack();
+            for(int card = 0; card < FACES; card++) {
+                originalActive(card);
+                originalInactive(card);
+            }
+        }, "card-image-preloader");
+        loader.setDaemon(true);
+        loader.setPriority(Thread.MIN_PRIORITY);
+        loader.start();
+    }
+
+    /**
+     * Change the size in which the cards are painted. The images of
+     * another size are dropped, and enough drawn faces are kept for
+     * all cards which can be seen at the same time.
+     * @param width The width of a card.
+     * @param height The height of a card.
+     * @param visibleCards The number of cards which can be seen at the same time.
+     */
+    static void setCardSize(int width, int height, int visibleCards)
+    {
+        Icon original = originalBack();
+        if(width == original.getIconWidth() && height == original.getIconHeight()) {
+            width = 0;
+            height = 0;
+        }
+        synchronized(CardImages.class) {
+            if(width != cardWidth || height != cardHeight) {
+                cardWidth = width;
+                cardHeight = height;
+                sizeChanges++;
+                Arrays.fill(scaledActive, null);
+                Arrays.fill(scaledInactive, null);
+                Arrays.fill(scaledBacks, null);
+                drawn.clear();
+            }
+            drawn.setCapacity(Math.max(DRAWN_FACES, 2 * visibleCards));
+        }
+    }
+
+    /**
+     * Return the image of the back of the cards.
+     * @return The back image.
+     */
+    static Icon getBack()
+    {
+        return sized(scaledBacks, BACK_ICON, originalBack());
+    }
+
+    /**
+     * Return the image of the back of the cards, as it is shown
+     * when the board is disabled.
+     * @return The disabled back image.
+     */
+    static Icon getDisabledBack()
+    {
+        return sized(scaledBacks, DISABLED_BACK_ICON, originalDisabledBack());
+    }
+
+    /**
+     * Return the image of an open card.
+     * @param card The card id.
+     * @return The face image of the card.
+     */
+    static Icon getActive(int card)
+    {
+        if(card >= FACES) {
+            return getDrawn(card, false);
+        }
+        return sized(scaledActive, card, originalActive(card));
+    }
+
+    /**
+     * Return the image of a card that has been matched.
+     * @param card The card id.
+     * @return The inactive face image of the card.
+     */
+    static Icon getInactive(int card)
+    {
+        if(card >= FACES) {
+            return getDrawn(card, true);
+        }
+        return sized(scaledInactive, card, originalInactive(card));
+    }
+
+    /**
+     * Load the back of the cards in the size of the image.
+     */
+    private static Icon originalBack()
+    {
+        Icon icon = cached(backs, BACK_ICON);
+        return icon != null ? icon : publish(backs, BACK_ICON, load(ACTIVE + BACK));
+    }
+
+    /**
+     * Create the disabled back of the cards in the size of the image.
+     */
+    private static Icon originalDisabledBack()
+    {
+        Icon icon = cached(backs, DISABLED_BACK_ICON);
+        if(icon != null) {
+            return icon;
+        }
+        return publish(backs, DISABLED_BACK_ICON, UIManager.getLookAndFeel().getDisabledIcon(null, originalBack()));
+    }
+
+    /**
+     * Load the face of an open card in the size of the image.
+     */
+    private static Icon originalActive(int card)
+    {
+        Icon icon = cached(active, card);
+        return icon != null ? icon : publish(active, card, load(ACTIVE + card));
+    }
+
+    /**
+     * Load the face of a matched card in the size of the image.
+     */
+    private static Icon originalInactive(int card)
+    {
+        Icon icon = cached(inactive, card);
+        return icon != null ? icon : publish(inactive, card, load(INACTIVE + card));
+    }
+
+    /**
+     * Look up an image in a cache of images in their original size.
+     * @return The image, or null if it has not been loaded yet.
+     */
+    private static synchronized Icon cached(Icon[] cache, int index)
+    {
+        return cache[index];
+    }
+
+    /**
+     * Keep an image which has been loaded outside of the lock, unless
+     * another thread has kept the same image first.
+     * @return The image that is kept, which all callers share.
+     */
+    private static synchronized Icon publish(Icon[] cache, int index, Icon icon)
+    {
+        if(cache[index] == null) {
+            cache[index] = icon;
+        }
+        return cache[index];
+    }
+
+    /**
+     * Return an image in the card size. An image which is not in the
+     * cache is scaled outside of the lock and then kept, unless the
+     * card size has changed in the meantime.
+     * @param cache The cache of the scaled images.
+     * @param index The index of the image in the cache.
+     * @param original The image in its original size.
+     * @return The image in the card size.
+     */
+    private static Icon sized(Icon[] cache, int index, Icon original)
+    {
+        int width, height, size;
+        synchronized(CardImages.class) {
+            if(cardWidth == 0) {
+                return original;
+            }
+            if(cache[index] != null) {
+                return cache[index];
+            }
+            width = cardWidth;
+            height = cardHeight;
+            size = sizeChanges;
+        }
+        Icon icon = scale(original, width, height);
+        synchronized(CardImages.class) {
+            if(size != sizeChanges) {
+                return icon;
+            }
+            if(cache[index] == null) {
+                cache[index] = icon;
+            }
+            return cache[index];
+        }
+    }
+
+    /**
+     * Scale an image to a size.
+     * @param icon The image in its original size.
+     * @param width The width of the scaled image.
+     * @param height The height of the scaled image.
+     * @return The scaled image.
+     */
+    private static Icon scale(Icon icon, int width, int height)
+    {
+        BufferedImage image = new BufferedImage(icon.getIconWidth(), icon.getIconHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics g = image.createGraphics();
+        icon.paintIcon(null, g, 0, 0);
+        g.dispose();
+        return new ImageIcon(image.getScaledInstance(width, height, Image.SCALE_SMOOTH));
+    }
+
+    /**
+     * Return a drawn face from the cache, drawing it outside of the
+     * lock if it is not there.
+     * @param card The card id, at least FACES.
+     * @param isInactive True for the face of a matched card.
+     * @return The face image of the card.
+     */
+    private static Icon getDrawn(int card, boolean isInactive)
+    {
+        int size;
+        synchronized(CardImages.class) {
+            Icon icon = drawn.get(card, isInactive);
+            if(icon != null) {
+                return icon;
+            }
+            size = sizeChanges;
+        }
+        Icon back = getBack();
+        Icon icon = new ImageIcon(FaceRenderer.render(card - FACES, back.getIconWidth(), back.getIconHeight(), isInactive));
+        synchronized(CardImages.class) {
+            if(size != sizeChanges) {
+                return icon;
+            }
+            Icon other = drawn.get(card, isInactive);
+            if(other != null) {
+                return other;
+            }
+            drawn.put(card, isInactive, icon);
+            return icon;
+        }
+    }
+
+    /**
+     * Build an image from the card atlas, or decode it from
+     * its own file if there is no atlas.
+     * @param name The name of the image, for example "active/3".
+     * @return The image.
+     */
+    private static Icon load(String name)
+    {
+        if(Atlas.ATLAS != null) {
+            BufferedImage image = Atlas.ATLAS.getImage(name);
+            if(image != null) {
+                return new ImageIcon(image);
+            }
+        }
+        return new ImageIcon(CardImages.class.getResource(PATH_IMAGES + name + ".jpg"));
+    }
+
+    /**
+     * Holds the card atlas, which is opened by the first image that is
+     * loaded. The class loader opens it once, without the lock of the caches.
+     */
+    private static class Atlas
+    {
+        private final static CardAtlas ATLAS = open();
+
+        private static CardAtlas open()
+        {
+            try {
+                return CardAtlas.load();
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package memorygame;
+
+import java.util.SplittableRandom;
+
+/**
+ * A seeded permutation of the cell indices of a board, computed for one
+ * cell at a time. It is a Feistel network on the smallest even number
+ * of bits which holds every index, and an index which is mapped outside
+ * of the board is mapped again until it falls inside ("cycle walking"),
+ * so every cell gets a different position without any array.
+ * The card of a cell is its position divided by two.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class CellPermutation
+{
+    private final static int ROUNDS = 6;
+
+    private final int size;
+    private final int halfBits;
+    private final int halfMask;
+    private final long[] keys = new long[ROUNDS];
+
+    /**
+     * Create a new CellPermutation.
+     * @param size The number of cells, at least 2.
+     * @param seed The seed of the permutation. The same seed gives the same permutation.
+     */
+    CellPermutation(int size, long seed)
+    {
+        this.size = size;
+        int bits = Math.max(2, 32 - Integer.numberOfLeadingZeros(size - 1));
+        bits += bits & 1;
+        halfBits = bits / 2;
+        halfMask = (1 << halfBits) - 1;
+        SplittableRandom random = new SplittableRandom(seed);
+        for(int i = 0; i < ROUNDS; i++) {
+            keys[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Return the position of a cell.
+     * @param index The index of the cell, from 0 to size - 1.
+     * @return The position of the cell, from 0 to size - 1.
+     */
+    int apply(int index)
+    {
+        long x = index;
+        do {
+            x = encrypt(x);
+        } while(x >= size);
+        return (int)x;
+    }
+
+    /**
+     * One pass of the Feistel network over all values of its bits.
+     */
+    private long encrypt(long x)
+    {
+        int left = (int)(x >>> halfBits);
+        int right = (int)(x & halfMask);
+        for(int i = 0; i < ROUNDS; i++) {
+            int next = left ^ (int)(mix(right + keys[i]) & halfMask);
+            left = right;
+            right = next;
+        }
+        return ((long)left << halfBits) | right;
+    }
+
+    /**
+     * The finalizer of SplitMix64, which spreads every input bit over the output.
+     */
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,253 @@
+package memorygame;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * Deals the cards of a board. Every card id from 0 to cells/2 - 1
+ * is placed twice and the cells are then shuffled in place with a single
+ * Fisher-Yates pass, so a deal takes linear time and no boxing.
+ * A board of PARALLEL_THRESHOLD cells or more is shuffled in two halves
+ * which are then merged with a random merge, as in the MergeShuffle
+ * algorithm, so that the halves can be shuffled in parallel.
+ * The same seed always gives the same deal, whether the board is
+ * dealt by one thread or in parallel.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public final class Dealer
+{
+    //Boards with at least this many cells are shuffled in halves, and dealt in parallel by the PairEngine.
+    public final static int PARALLEL_THRESHOLD = 1 << 18;
+    //Below this size a part of the board is shuffled by a single thread.
+    private final static int SEQUENTIAL_CUTOFF = 1 << 14;
+
+    private Dealer() {}
+
+    /**
+     * Deal the cards into an int array using a seed.
+     * @param cards The array to be filled, its length must be even.
+     * @param seed The seed of the deal.
+     */
+    public static void deal(int[] cards, long seed)
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+        if(cards.length < PARALLEL_THRESHOLD) {
+            deal(cards, random);
+        } else {
+            shuffleInHalves(cards, 0, cards.length, random);
+        }
+    }
+
+    /**
+     * Deal the cards into an int array using a random generator,
+     * with one Fisher-Yates pass over the whole board.
+     * @param cards The array to be filled, its length must be even.
+     * @param random The random generator used for the shuffle.
+     */
+    public static void deal(int[] cards, RandomGenerator random)
+    {
+        fill(cards, 0, cards.length);
+        shuffle(cards, 0, cards.length, random);
+    }
+
+    /**
+     * Deal the cards into a short array using a seed.
+     * @param cards The array to be filled, its length must be even.
+     * @param seed The seed of the deal.
+     */
+    public static void deal(short[] cards, long seed)
+    {
+        deal(cards, new SplittableRandom(seed));
+    }
+
+    /**
+     * Deal the cards into a short array using a random generator.
+     * @param cards The array to be filled, its length must be even.
+     * @param random The random generator used for the shuffle.
+     */
+    public static void deal(short[] cards, RandomGenerator random)
+    {
+        for(int i = 0; i < cards.length; i++) {
+            cards[i] = (short)(i >> 1);
+        }
+        for(int i = cards.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            short tmp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = tmp;
+        }
+    }
+
+    /**
+     * Deal the cards into an int array on the common fork-join pool.
+     * Both halves of the board are shuffled in parallel and then merged
+     * with a random merge, which keeps every deal equally likely.
+     * The deal is the same as the one of deal with this seed.
+     * @param cards The array to be filled, its length must be even.
+     * @param seed The seed of the deal.
+     */
+    public static void dealParallel(int[] cards, long seed)
+    {
+        dealParallel(cards, new SplittableRandom(seed));
+    }
+
+    /**
+     * Deal the cards into an int array on the common fork-join pool.
+     * A board below PARALLEL_THRESHOLD is dealt by the calling thread.
+     * @param cards The array to be filled, its length must be even.
+     * @param random The splittable generator used for the shuffle.
+     */
+    public static void dealParallel(int[] cards, SplittableGenerator random)
+    {
+        if(cards.length < PARALLEL_THRESHOLD) {
+            deal(cards, random);
+        } else {
+            ForkJoinPool.commonPool().invoke(new ShuffleTask(cards, 0, cards.length, random));
+        }
+    }
+
+    /**
+     * Deal the cards of an engine into a short array, if every card id
+     * of the board fits in a short. The engines store the cards of the
+     * other boards in an int array dealt by dealInts.
+     * @param cells The number of cells of the board.
+     * @param seed The seed of the deal.
+     * @return The cards, or null if the board has too many cells.
+     */
+    static short[] dealShorts(int cells, long seed)
+    {
+        if(cells/2 - 1 > Short.MAX_VALUE) {
+            return null;
+        }
+        short[] cards = new short[cells];
+        deal(cards, seed);
+        return cards;
+    }
+
+    /**
+     * Deal the cards of an engine into an int array, in parallel if the
+     * board has at least PARALLEL_THRESHOLD cells.
+     * @param cells The number of cells of the board.
+     * @param seed The seed of the deal.
+     * @return The cards.
+     */
+    static int[] dealInts(int cells, long seed)
+    {
+        int[] cards = new int[cells];
+        dealParallel(cards, seed);
+        return cards;
+    }
+
+    /**
+     * Place every card id twice in a part of the array.
+     */
+    private static void fill(int[] cards, int from, int to)
+    {
+        for(int i = from; i < to; i++) {
+            cards[i] = i >> 1;
+        }
+    }
+
+    /**
+     * Shuffle a part of the array with the Fisher-Yates algorithm.
+     */
+    private static void shuffle(int[] cards, int from, int to, RandomGenerator random)
+    {
+        for(int i = to - 1; i > from; i--) {
+            swap(cards, i, from + random.nextInt(i - from + 1));
+        }
+    }
+
+    /**
+     * Fill and shuffle a part of the array in halves, in the calling
+     * thread, with the same splits of the generator as ShuffleTask.
+     */
+    private static void shuffleInHalves(int[] cards, int from, int to, SplittableGenerator random)
+    {
+        if(to - from <= SEQUENTIAL_CUTOFF) {
+            fill(cards, from, to);
+            shuffle(cards, from, to, random);
+        } else {
+            int mid = (from + to) >>> 1;
+            SplittableGenerator left = random.split();
+            SplittableGenerator right = random.split();
+            shuffleInHalves(cards, from, mid, left);
+            shuffleInHalves(cards, mid, to, right);
+            merge(cards, from, mid, to, random);
+        }
+    }
+
+    /**
+     * Merge two shuffled neighbouring parts of the array into one
+     * shuffled part, as in the MergeShuffle algorithm.
+     */
+    private static void merge(int[] cards, int from, int mid, int to, RandomGenerator random)
+    {
+        int i = from;
+        int j = mid;
+        while(true) {
+            if(random.nextBoolean()) {
+                if(j == to) {
+                    break;
+                }
+                swap(cards, i, j);
+                j++;
+            } else if(i == j) {
+                break;
+            }
+            i++;
+        }
+        for(; i < to; i++) {
+            swap(cards, i, from + random.nextInt(i - from + 1));
+        }
+    }
+
+    private static void swap(int[] cards, int i, int j)
+    {
+        int tmp = cards[i];
+        cards[i] = cards[j];
+        cards[j] = tmp;
+    }
+
+    /**
+     * Fills and shuffles a part of the array, splitting it in two halves
+     * while it is larger than the sequential cutoff, as shuffleInHalves does.
+     */
+    private static class ShuffleTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] cards;
+        private final int from, to;
+        private final SplittableGenerator random;
+
+        ShuffleTask(int[] cards, int from, int to, SplittableGenerator random)
+        {
+            this.cards = cards;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if(to - from <= SEQUENTIAL_CUTOFF) {
+                fill(cards, from, to);
+                shuffle(cards, from, to, random);
+            } else {
+                int mid = (from + to) >>> 1;
+                //Split in a fixed order, so the deal does not depend on the scheduling.
+                ShuffleTask left = new ShuffleTask(cards, from, mid, random.split());
+                ShuffleTask right = new ShuffleTask(cards, mid, to, random.split());
+                invokeAll(left, right);
+                merge(cards, from, mid, to, random);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package memorygame;
+
+import java.util.Arrays;
+import javax.swing.Icon;
+
+/**
+ * The drawn card faces of one card size. A face is found by its key,
+ * card id * 2 plus one for the inactive face, as an index of an array,
+ * so a lookup creates no objects. Only a bounded number of faces is
+ * kept: when the cache is full, a face is dropped with the clock
+ * algorithm, which passes over the faces used since it last saw them,
+ * so the faces used most recently stay.
+ * The class is not thread-safe.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class DrawnFaces
+{
+    //The faces by key, grown to the highest key which has been drawn.
+    private Icon[] faces = new Icon[64];
+    //True for every key whose face has been used since the clock passed it.
+    private boolean[] used = new boolean[64];
+    //The keys in the cache, in the order the clock passes them.
+    private int[] ring;
+    private int size, hand;
+
+    /**
+     * Create an empty DrawnFaces.
+     * @param capacity The number of faces which are kept.
+     */
+    DrawnFaces(int capacity)
+    {
+        ring = new int[capacity];
+    }
+
+    /**
+     * Return a face from the cache.
+     * @param card The card id.
+     * @param isInactive True for the face of a matched card.
+     * @return The face, or null if it is not in the cache.
+     */
+    Icon get(int card, boolean isInactive)
+    {
+        int key = card * 2 + (isInactive ? 1 : 0);
+        if(key >= faces.length || faces[key] == null) {
+            return null;
+        }
+        used[key] = true;
+        return faces[key];
+    }
+
+    /**
+     * Add a face to the cache, dropping another one if it is full.
+     * @param card The card id.
+     * @param isInactive True for the face of a matched card.
+     * @param icon The face.
+     */
+    void put(int card, boolean isInactive, Icon icon)
+    {
+        int key = card * 2 + (isInactive ? 1 : 0);
+        if(key >= faces.length) {
+            int length = Math.max(key + 1, 2 * faces.length);
+            faces = Arrays.copyOf(faces, length);
+            used = Arrays.copyOf(used, length);
+        }
+        if(faces[key] == null) {
+            if(size < ring.length) {
+                ring[size++] = key;
+            } else {
+                while(used[ring[hand]]) {
+                    used[ring[hand]] = false;
+                    hand = (hand + 1) % ring.length;
+                }
+                faces[ring[hand]] = null;
+                ring[hand] = key;
+                hand = (hand + 1) % ring.length;
+            }
+        }
+        faces[key] = icon;
+        used[key] = true;
+    }
+
+    /**
+     * Change the number of faces which are kept. When it shrinks,
+     * the faces the clock would drop first are dropped.
+     * @param capacity The number of faces which are kept.
+     */
+    void setCapacity(int capacity)
+    {
+        if(capacity == ring.length) {
+            return;
+        }
+        int[] next = new int[capacity];
+        int kept = Math.min(size, capacity);
+        for(int i = 0; i < size; i++) {
+            int key = ring[(hand + i) % ring.length];
+            if(i < size - kept) {
+                faces[key] = null;
+                used[key] = false;
+            } else {
+                next[i - (size - kept)] = key;
+            }
+        }
+        ring = next;
+        size = kept;
+        hand = 0;
+    }
+
+    /**
+     * Drop all faces.
+     */
+    void clear()
+    {
+        for(int i = 0; i < size; i++) {
+            faces[ring[i]] = null;
+            used[ring[i]] = false;
+        }
+        size = 0;
+        hand = 0;
+    }
+
+    /**
+     * Return the number of faces in the cache.
+     * @return The number of faces.
+     */
+    int size()
+    {
+        return size;
+    }
+}
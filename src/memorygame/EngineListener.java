@@ -0,0 +1,67 @@
+package memorygame;
+
+/**
+ * Receives the events of a PairEngine as they happen, so that views,
+ * recorders and metrics do not have to decode the result of checkResult
+ * or ask the engine for its counters. Every event carries the values
+ * it is about as primitives, so publishing an event creates no objects.
+ * The events are delivered on the thread that calls checkResult, after
+ * the state of the engine has been updated. All methods do nothing by
+ * default, so a listener only implements the events it needs.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public interface EngineListener
+{
+    /**
+     * The first card of a pair has been opened.
+     * @param cell The index of the cell, counted row by row.
+     * @param card The card id on the cell.
+     */
+    default void flipped(int cell, int card)
+    {
+    }
+
+    /**
+     * The second card of a pair has been opened and matches the first.
+     * @param firstCell The index of the first cell of the pair.
+     * @param secondCell The index of the second cell of the pair.
+     * @param card The card id on both cells.
+     * @param attempts The number of attempts, including this one.
+     */
+    default void matched(int firstCell, int secondCell, int card, int attempts)
+    {
+    }
+
+    /**
+     * The second card of a pair has been opened and does not match the first.
+     * @param firstCell The index of the first cell of the pair.
+     * @param firstCard The card id on the first cell.
+     * @param secondCell The index of the second cell of the pair.
+     * @param secondCard The card id on the second cell.
+     * @param attempts The number of attempts, including this one.
+     */
+    default void mismatched(int firstCell, int firstCard, int secondCell, int secondCard, int attempts)
+    {
+    }
+
+    /**
+     * A cell could not be opened, because it is outside of the board,
+     * already matched or already open.
+     * @param row The row that was asked for, or PairEngine.OUTSIDE for a
+     * cell index of checkCells which is outside of the board.
+     * @param col The column that was asked for, or PairEngine.OUTSIDE as the row.
+     */
+    default void rejected(int row, int col)
+    {
+    }
+
+    /**
+     * The last pair has been matched. This event follows the last matched event.
+     * @param attempts The number of attempts the game took.
+     */
+    default void won(int attempts)
+    {
+    }
+}
@@ -0,0 +1,132 @@
+package memorygame;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a few dealt engines of every BoardType ready, so that a new
+ * game does not have to wait for its deal. The engines are dealt on a
+ * background thread and the pool is refilled after every take. It holds
+ * at most 'depth' engines of a type and stops dealing ahead when the
+ * engines it holds would take more than 'capacity' bytes; a take from
+ * an empty pool deals the engine on the calling thread. Types which
+ * are not playable are never dealt ahead.
+ * <p>
+ * The depth and the capacity can be set with the system properties
+ * memorygame.pool.depth and memorygame.pool.memory, in megabytes.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class EnginePool
+{
+    //The system properties of the depth and of the memory cap.
+    final static String DEPTH_PROPERTY = "memorygame.pool.depth";
+    final static String MEMORY_PROPERTY = "memorygame.pool.memory";
+    private final static int DEFAULT_DEPTH = 2;
+    private final static long DEFAULT_MEMORY_MB = 64;
+
+    private final int depth;
+    private final long capacity;
+    private final Map<BoardType, ArrayDeque<PairEngine>> ready = new EnumMap<>(BoardType.class);
+    //The types which have a refill waiting or running.
+    private final Map<BoardType, Boolean> refilling = new EnumMap<>(BoardType.class);
+    private final ExecutorService dealer;
+    //The estimated bytes of all engines in the pool.
+    private long memory;
+
+    /**
+     * Create a pool with the depth and the capacity of the system properties.
+     */
+    EnginePool()
+    {
+        this(Integer.getInteger(DEPTH_PROPERTY, DEFAULT_DEPTH), Long.getLong(MEMORY_PROPERTY, DEFAULT_MEMORY_MB) << 20);
+    }
+
+    /**
+     * Create a pool.
+     * @param depth The most engines kept of one BoardType, 0 to deal every engine when it is taken.
+     * @param capacity The most bytes the engines in the pool may take.
+     */
+    EnginePool(int depth, long capacity)
+    {
+        this.depth = Math.max(0, depth);
+        this.capacity = capacity;
+        for(BoardType type : BoardType.values()) {
+            ready.put(type, new ArrayDeque<>());
+            refilling.put(type, false);
+        }
+        dealer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "engine-pool");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Start dealing engines of every playable BoardType in the background.
+     */
+    void prefill()
+    {
+        for(BoardType type : BoardType.values()) {
+            refill(type);
+        }
+    }
+
+    /**
+     * Take an engine for a new game, which nobody else has used.
+     * @param type The BoardType of the game.
+     * @return A dealt engine with a random seed.
+     */
+    PairEngine take(BoardType type)
+    {
+        PairEngine eng;
+        synchronized(this) {
+            eng = ready.get(type).poll();
+            if(eng != null) {
+                memory -= eng.stateSize();
+            }
+        }
+        refill(type);
+        return eng != null ? eng : new PairEngine(type.getRows(), type.getCols());
+    }
+
+    /**
+     * Deal engines of a type in the background until the pool is
+     * full, unless the type is not playable or a refill of the type
+     * is already waiting.
+     * @param type The BoardType to be refilled.
+     */
+    private void refill(BoardType type)
+    {
+        synchronized(this) {
+            if(depth == 0 || !type.isPlayable() || refilling.get(type)) {
+                return;
+            }
+            refilling.put(type, true);
+        }
+        dealer.execute(() -> {
+            while(true) {
+                synchronized(this) {
+                    if(ready.get(type).size() >= depth) {
+                        refilling.put(type, false);
+                        return;
+                    }
+                }
+                PairEngine eng = new PairEngine(type.getRows(), type.getCols());
+                synchronized(this) {
+                    if(memory + eng.stateSize() > capacity) {
+                        refilling.put(type, false);
+                        return;
+                    }
+                    ready.get(type).add(eng);
+                    memory += eng.stateSize();
+                }
+            }
+        });
+    }
+}
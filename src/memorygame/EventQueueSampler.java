@@ -0,0 +1,61 @@
+package memorygame;
+
+import java.awt.EventQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import memorygame.metrics.Metric;
+
+/**
+ * Measures how long the events of the game wait before the event
+ * dispatch thread runs them. A small task is posted to the event queue
+ * at a fixed rate and the time until it runs is recorded; a new task is
+ * posted only after the previous one has run, so a blocked event
+ * dispatch thread does not fill the queue.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class EventQueueSampler
+{
+    private final static long PERIOD_MILLIS = 100;
+
+    private final Metric delay;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Start sampling the delay of the event queue.
+     * @param delay The metric of the queue delay.
+     */
+    static void start(Metric delay)
+    {
+        new EventQueueSampler(delay);
+    }
+
+    private EventQueueSampler(Metric delay)
+    {
+        this.delay = delay;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "event-queue-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(this::sample, PERIOD_MILLIS, PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Post one task to the event queue, unless the last one is still waiting.
+     */
+    private void sample()
+    {
+        if(pending.compareAndSet(false, true)) {
+            long posted = System.nanoTime();
+            EventQueue.invokeLater(() -> {
+                delay.record(System.nanoTime() - posted);
+                pending.set(false);
+            });
+        }
+    }
+}
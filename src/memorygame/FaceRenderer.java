@@ -0,0 +1,145 @@
+package memorygame;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws the faces of the cards for which there is no image, so a deck
+ * can have any number of pairs. Every card id gets its own combination
+ * of a shape, a colour and, after all combinations are used, a glyph
+ * of letters, so no two card ids look the same.
+ * The face of a matched card is the same drawing in grey.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class FaceRenderer
+{
+    private final static int SHAPES = 6;
+    private final static int COLOURS = 12;
+    private final static Color BACKGROUND_TOP = new Color(0xF4F1EA);
+    private final static Color BACKGROUND_BOTTOM = new Color(0xD9D4C7);
+    private final static Color OUTLINE = new Color(0x303030);
+
+    private FaceRenderer() {}
+
+    /**
+     * Draw the face of a card.
+     * @param id The number of the generated face, starting from 0.
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @param inactive True for the face of a matched card.
+     * @return The image of the face.
+     */
+    static BufferedImage render(int id, int width, int height, boolean inactive)
+    {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setPaint(new GradientPaint(0, 0, tone(BACKGROUND_TOP, inactive), 0, height, tone(BACKGROUND_BOTTOM, inactive)));
+            g.fillRect(0, 0, width, height);
+
+            int size = Math.min(width, height) * 3 / 4;
+            Shape shape = shape(id % SHAPES, (width - size) / 2, (height - size) / 2, size);
+            g.setColor(tone(Color.getHSBColor((float)(id / SHAPES % COLOURS) / COLOURS, 0.75f, 0.9f), inactive));
+            g.fill(shape);
+            g.setColor(OUTLINE);
+            g.setStroke(new BasicStroke(Math.max(1, size / 24f)));
+            g.draw(shape);
+
+            int glyph = id / (SHAPES * COLOURS);
+            if(glyph > 0) {
+                drawGlyph(g, letters(glyph), width, height, size);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Return a colour as it is drawn on an active or an inactive face.
+     * @param colour The colour of the active face.
+     * @param inactive True to turn the colour into grey of the same brightness.
+     * @return The colour to be drawn.
+     */
+    private static Color tone(Color colour, boolean inactive)
+    {
+        if(!inactive) {
+            return colour;
+        }
+        int grey = (colour.getRed() * 299 + colour.getGreen() * 587 + colour.getBlue() * 114) / 1000;
+        return new Color(grey, grey, grey);
+    }
+
+    /**
+     * Create one of the shapes, fitting in a square.
+     */
+    private static Shape shape(int kind, int x, int y, int size)
+    {
+        switch(kind) {
+            case 0: return new Ellipse2D.Float(x, y, size, size);
+            case 1: return new Rectangle2D.Float(x + size / 8, y + size / 8, size * 3 / 4, size * 3 / 4);
+            case 2: return polygon(3, x, y, size, -Math.PI / 2, 1);
+            case 3: return polygon(4, x, y, size, -Math.PI / 2, 1);
+            case 4: return polygon(10, x, y, size, -Math.PI / 2, 0.45);
+            default: return new RoundRectangle2D.Float(x, y + size / 4, size, size / 2, size / 4, size / 4);
+        }
+    }
+
+    /**
+     * Create a regular polygon, or a star when every second corner
+     * is moved closer to the centre.
+     */
+    private static Polygon polygon(int corners, int x, int y, int size, double angle, double innerRatio)
+    {
+        Polygon polygon = new Polygon();
+        double radius = size / 2.0;
+        for(int i = 0; i < corners; i++) {
+            double r = i % 2 == 1 ? radius * innerRatio : radius;
+            double a = angle + 2 * Math.PI * i / corners;
+            polygon.addPoint((int)Math.round(x + radius + r * Math.cos(a)), (int)Math.round(y + radius + r * Math.sin(a)));
+        }
+        return polygon;
+    }
+
+    /**
+     * Write a glyph in the middle of the face.
+     */
+    private static void drawGlyph(Graphics2D g, String glyph, int width, int height, int size)
+    {
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, size / (glyph.length() + 1)));
+        FontMetrics metrics = g.getFontMetrics();
+        int x = (width - metrics.stringWidth(glyph)) / 2;
+        int y = (height - metrics.getHeight()) / 2 + metrics.getAscent();
+        g.setColor(Color.WHITE);
+        g.drawString(glyph, x, y);
+    }
+
+    /**
+     * Turn a positive number into letters: 1 is A, 26 is Z, 27 is AA.
+     */
+    private static String letters(int number)
+    {
+        StringBuilder sb = new StringBuilder();
+        while(number > 0) {
+            number--;
+            sb.append((char)('A' + number % 26));
+            number /= 26;
+        }
+        return sb.reverse().toString();
+    }
+}
@@ -0,0 +1,75 @@
+package memorygame;
+
+/**
+ * Measures the time a game has been played, from System.nanoTime,
+ * so it does not drift with the timer that shows it and does not jump
+ * when the wall clock is changed. The time stops exactly when the clock
+ * is paused and goes on from the same nanosecond when it is started.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class GameClock
+{
+    private final static long NANOS_PER_MILLI = 1_000_000;
+
+    //The time played before the clock was last started.
+    private long elapsedNanos;
+    //The nanoTime when the clock was last started.
+    private long startNanos;
+    private boolean running;
+
+    /**
+     * Stop the clock and set the time already played.
+     * @param millis The time the game has already been played.
+     */
+    void reset(long millis)
+    {
+        elapsedNanos = millis * NANOS_PER_MILLI;
+        running = false;
+    }
+
+    /**
+     * Start the clock, or let it go on after a pause.
+     */
+    void start()
+    {
+        if(!running) {
+            startNanos = System.nanoTime();
+            running = true;
+        }
+    }
+
+    /**
+     * Stop the clock, keeping the time played so far.
+     */
+    void pause()
+    {
+        if(running) {
+            elapsedNanos += System.nanoTime() - startNanos;
+            running = false;
+        }
+    }
+
+    /**
+     * Check whether the clock is running.
+     * @return True if the clock has been started and not paused.
+     */
+    boolean isRunning()
+    {
+        return running;
+    }
+
+    /**
+     * Return the time the game has been played.
+     * @return The time in milliseconds.
+     */
+    long getMillis()
+    {
+        long nanos = elapsedNanos;
+        if(running) {
+            nanos += System.nanoTime() - startNanos;
+        }
+        return nanos / NANOS_PER_MILLI;
+    }
+}
@@ -3,16 +3,17 @@ package memorygame;
 import java.awt.*;
 import javax.swing.*;
 import java.awt.event.*;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.FloatControl;
-import javax.sound.sampled.LineListener;
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import memorygame.journal.MoveJournal;
+import memorygame.metrics.Metric;
+import memorygame.metrics.Metrics;
+import memorygame.score.Leaderboard;
+import memorygame.score.Score;
 
 /**
  * This class creates a graphical user interface
@@ -25,27 +26,67 @@ public class GameGUI
 {
     private final static String GAME_TITLE = "Photographic Memory Puzzle";
     private final static String HELP_MESSAGE = "This is a simple pair game.\nOpen the cards, until you match all pairs.";
+    private final static String PATH_SOUND_FILE = "/memorygame/resources/sounds/button.wav";
+    //The system property with the file in which the games are recorded.
+    private final static String JOURNAL_PROPERTY = "memorygame.journal";
+    //The file in which an unfinished game is saved when the player quits.
+    private final static Path SNAPSHOT_FILE = Paths.get(System.getProperty("user.home"), ".memorygame", "save.bin");
+    //The file in which the results of the won games are kept.
+    private final static Path SCORES_FILE = Paths.get(System.getProperty("user.home"), ".memorygame", "scores.log");
+    //The number of best results shown in the high scores.
+    private final static int HIGH_SCORES = 10;
+    //The latency metrics of the interface.
+    private final static Metric FLIP_TIME = Metrics.get("gui.flip");
+    private final static Metric CHECK_TIME = Metrics.get("engine.checkResult");
+    private final static Metric ICON_TIME = Metrics.get("gui.icon");
+    private final static Metric BOARD_TIME = Metrics.get("gui.board");
+    private final static Metric QUEUE_DELAY = Metrics.get("gui.queueDelay");
+    //The zoom levels of the board, the default one is the size of the images.
+    private final static double[] ZOOM_LEVELS = {0.125, 0.25, 0.5, 0.75, 1, 1.5, 2};
+    private final static int DEFAULT_ZOOM = 4;
 
     private Board board;
     private JFrame frame;
     private JPanel container;
+    private JScrollPane scrollPane;
+    private SoundPlayer sound;
+    //Records the moves of every game, null if the games are not recorded.
+    private MoveJournal journal;
+    //The results of the won games, null if they cannot be stored.
+    private Leaderboard leaderboard;
+    //Engines dealt ahead for the next games.
+    private final EnginePool pool = new EnginePool();
 
-    //Buttons that are used from the user to select different difficulty for the game.
-    private JRadioButtonMenuItem bgnButton, intButton, advButton;
+    //Buttons that are used from the user to select different difficulty for the game, by BoardType.
+    private JRadioButtonMenuItem[] levelButtons;
     private JCheckBoxMenuItem pauseBox, soundBox;
-    private JLabel timerLabel, attemptsLabel;
+    private HudCounter timerLabel, attemptsLabel;
+    //Shows the time of the game on every full second of its clock.
     private Timer tR;
-    private int seconds;
-    private boolean isFirstStart = true;
+    private final GameClock clock = new GameClock();
+    //True while the level buttons are changed to match a resumed game.
+    private boolean isResuming;
+    //The index of the current zoom in ZOOM_LEVELS.
+    private int zoomLevel = DEFAULT_ZOOM;
 
     /**
      * Create the new game instance and initialize it's state.
      */
     public GameGUI()
     {
+        CardImages.preload();
+        sound = new SoundPlayer(PATH_SOUND_FILE);
+        openJournal();
+        openLeaderboard();
+        if(Metrics.ENABLED) {
+            EventQueueSampler.start(QUEUE_DELAY);
+        }
         makeFrame();
         createTimer();
-        newGame();
+        if(!resumeGame()) {
+            newGame();
+        }
+        pool.prefill();
     }
 
     /**
@@ -54,7 +95,13 @@ public class GameGUI
     private void makeFrame()
     {
         frame = new JFrame(GAME_TITLE);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);   
+        frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                quit();
+            }
+        });
 
         makeMenuBar();
 
@@ -62,15 +109,18 @@ public class GameGUI
         container.setLayout(new BorderLayout(6,6));
 
         JPanel labels = new JPanel(new GridLayout());
-        timerLabel = new JLabel("TIME: 000", JLabel.CENTER);
-        attemptsLabel = new JLabel("ATTEMPTS: 000", JLabel.CENTER);
+        timerLabel = new HudCounter("TIME: ");
+        attemptsLabel = new HudCounter("ATTEMPTS: ");
         labels.add(timerLabel);
         labels.add(attemptsLabel);
         container.add(labels, BorderLayout.SOUTH);
 
+        scrollPane = new JScrollPane();
+        scrollPane.setBorder(null);
+        container.add(scrollPane, BorderLayout.CENTER);
+
         frame.setVisible(true);
         frame.setLocationRelativeTo(null);
-        frame.setResizable(false);
     }
 
     /**
@@ -93,29 +143,27 @@ public class GameGUI
         JMenu levelMenu = new JMenu("Level");
 
         ButtonGroup buttonGroup = new ButtonGroup();
-        bgnButton = new JRadioButtonMenuItem("Beginner");
-        bgnButton.setSelected(true);
-        bgnButton.addItemListener((ItemEvent e) -> {
-            startGame(BoardType.BEGINNER);
-        });
-
-        intButton = new JRadioButtonMenuItem("Intermediate");
-        intButton.addItemListener((ItemEvent e) -> {
-            startGame(BoardType.INTERMEDIATE);
-        });
-
-        advButton = new JRadioButtonMenuItem("Advanced");
-        advButton.addItemListener((ItemEvent e) -> {
-            startGame(BoardType.ADVANCED);
-        });
-
-        buttonGroup.add(bgnButton);
-        buttonGroup.add(intButton);
-        buttonGroup.add(advButton);
-
-        levelMenu.add(bgnButton);
-        levelMenu.add(intButton);
-        levelMenu.add(advButton);
+        BoardType[] types = BoardType.values();
+        levelButtons = new JRadioButtonMenuItem[types.length];
+        for(BoardType type : types) {
+            if(!type.isPlayable()) {
+                continue;
+            }
+            String name = type.name();
+            JRadioButtonMenuItem button = new JRadioButtonMenuItem(name.charAt(0) + name.substring(1).toLowerCase());
+            //The default level is selected before the listener is added, so that it does not start a game
+            //before the frame is built.
+            button.setSelected(type == BoardType.BEGINNER);
+            button.addItemListener((ItemEvent e) -> {
+                //Only the selected button starts a game, not the one which is deselected.
+                if(!isResuming && e.getStateChange() == ItemEvent.SELECTED) {
+                    startGame(type);
+                }
+            });
+            buttonGroup.add(button);
+            levelMenu.add(button);
+            levelButtons[type.ordinal()] = button;
+        }
 
         gameMenu.add(levelMenu);    
         gameMenu.addSeparator();
@@ -131,6 +179,12 @@ public class GameGUI
         soundBox.setSelected(true);
         soundBox.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, 0));
         gameMenu.add(soundBox);
+
+        JMenuItem highScoresItem = new JMenuItem("High Scores");
+        highScoresItem.addActionListener((ActionEvent e) -> {
+            displayHighScores();
+        });
+        gameMenu.add(highScoresItem);
         gameMenu.addSeparator();
 
         menuBar.add(gameMenu);
@@ -144,6 +198,27 @@ public class GameGUI
         });
         gameMenu.add(quitItem);
 
+        JMenu viewMenu = new JMenu("View");
+        JMenuItem zoomInItem = new JMenuItem("Zoom In");
+        zoomInItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_EQUALS, SHORTCUT_MASK));
+        zoomInItem.addActionListener((ActionEvent e) -> {
+            zoom(zoomLevel + 1, null);
+        });
+        JMenuItem zoomOutItem = new JMenuItem("Zoom Out");
+        zoomOutItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_MINUS, SHORTCUT_MASK));
+        zoomOutItem.addActionListener((ActionEvent e) -> {
+            zoom(zoomLevel - 1, null);
+        });
+        JMenuItem actualSizeItem = new JMenuItem("Actual Size");
+        actualSizeItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_0, SHORTCUT_MASK));
+        actualSizeItem.addActionListener((ActionEvent e) -> {
+            zoom(DEFAULT_ZOOM, null);
+        });
+        viewMenu.add(zoomInItem);
+        viewMenu.add(zoomOutItem);
+        viewMenu.add(actualSizeItem);
+        menuBar.add(viewMenu);
+
         JMenu helpMenu = new JMenu("Help");
         JMenuItem helpItem = new JMenuItem("View Help");
         helpItem.addActionListener((ActionEvent e) -> {
@@ -157,6 +232,13 @@ public class GameGUI
 
         helpMenu.add(helpItem);
         helpMenu.add(aboutItem);
+        if(Metrics.ENABLED) {
+            JMenuItem metricsItem = new JMenuItem("Metrics");
+            metricsItem.addActionListener((ActionEvent e) -> {
+                displayMetrics();
+            });
+            helpMenu.add(metricsItem);
+        }
         menuBar.add(helpMenu);
     }
 
@@ -166,53 +248,86 @@ public class GameGUI
      */
     private void newGame()
     {
-        if(advButton.isSelected()) {
-            startGame(BoardType.ADVANCED); 
-        } else if (intButton.isSelected()) {
-            startGame(BoardType.INTERMEDIATE);
-        } else {
-            startGame(BoardType.BEGINNER);
-        }     
+        BoardType selected = BoardType.BEGINNER;
+        for(BoardType type : BoardType.values()) {
+            if(type.isPlayable() && levelButtons[type.ordinal()].isSelected()) {
+                selected = type;
+            }
+        }
+        startGame(selected);
+    }
+
+    /**
+     * Change the zoom of the board, keeping a point of the board
+     * at the same place on the screen.
+     * @param level The index of the new zoom in ZOOM_LEVELS, it is limited to the valid range.
+     * @param anchor The point of the board which stays in place, null for the middle of the view.
+     */
+    private void zoom(int level, Point anchor)
+    {
+        level = Math.max(0, Math.min(ZOOM_LEVELS.length - 1, level));
+        if(level != zoomLevel) {
+            zoomLevel = level;
+            board.setZoom(ZOOM_LEVELS[level], anchor);
+        }
     }
 
     /**
      * Initialize the state of the 'time'
-     * and 'attempts' labels.
+     * and 'attempts' labels and start the clock.
+     * @param startMillis The time the game has already been played.
      */
-    private void initializeCounters()
+    private void initializeCounters(long startMillis)
     {
-        seconds = -1;
-        updateTimer();
-        board.updateAttempts();
-        tR.restart(); 
+        clock.reset(startMillis);
+        board.updateAttempts(board.eng.getMoves() / 2);
+        startClock();
     }
 
     /**
      * Create the timer for the Time section of the game.
+     * It fires once, on the next full second of the clock,
+     * and is started again by updateTimer.
      */
     private void createTimer()
     {
         tR = new Timer(1000, (ActionEvent ae) -> {
             updateTimer();
         });
-        tR.setRepeats(true);
-        tR.setInitialDelay(1000);
+        tR.setRepeats(false);
+    }
+
+    /**
+     * Start or resume the clock of the game and show its time.
+     */
+    private void startClock()
+    {
+        clock.start();
+        updateTimer();
     }
 
     /**
-     * Updates the timer with the new count
-     * of the seconds.
+     * Pause the clock of the game.
+     */
+    private void stopClock()
+    {
+        clock.pause();
+        tR.stop();
+        updateTimer();
+    }
+
+    /**
+     * Show the time of the clock in full seconds and, while
+     * the clock runs, wait for its next full second.
      */
     private void updateTimer()
     {     
-        seconds++;
-        if(seconds < 10 ) {
-            timerLabel.setText("TIME: 00"+seconds);
-        } else if(seconds < 100) {
-            timerLabel.setText("TIME: 0"+seconds);
-        } else {
-            timerLabel.setText("TIME: "+seconds);
-        }   
+        long millis = clock.getMillis();
+        timerLabel.setValue((int)(millis / 1000));
+        if(clock.isRunning()) {
+            tR.setInitialDelay((int)(1000 - millis % 1000));
+            tR.restart();
+        }
     }
 
     /**
@@ -220,12 +335,15 @@ public class GameGUI
      */
     private void pauseSelectDeselect()
     {
+        if(board.won) {
+            return;
+        }
         if(pauseBox.isSelected()) {
-            tR.stop();
+            stopClock();
             disableBoardPanel();
         } else {
             enableBoardPanel();
-            tR.start();
+            startClock();
         }
     }
 
@@ -235,13 +353,7 @@ public class GameGUI
      */
     private void enableBoardPanel()
     {
-        board.setEnabled(false);
-        for(Component component : board.getComponents()) {
-            if(!component.getName().equals("d") && !component.getName().endsWith("F")) {
-                component.setEnabled(true);
-            }
-        }
-        board.setEnabled(true);
+        board.setPaused(false);
     }
 
     /**
@@ -250,23 +362,20 @@ public class GameGUI
      */
     private void disableBoardPanel()
     {
-        board.setEnabled(false);
-        for(Component component : board.getComponents()) {
-            if(!component.getName().equals("d")) {
-                component.setEnabled(false);
-            }
-        }
-        board.setEnabled(true);
+        board.setPaused(true);
     }
 
     /**
-     * Used to clear the central part of the GUI,
-     * so that the new panel can be redrawn.
+     * Make the frame smaller if it does not fit on the screen.
+     * The rest of the board can then be scrolled to.
      */
-    private void clearPreviousCentralContainer()
+    private void fitFrameToScreen()
     {
-        BorderLayout layout = (BorderLayout)container.getLayout();
-        container.remove(layout.getLayoutComponent(BorderLayout.CENTER));
+        Rectangle screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+        if(frame.getWidth() > screen.width || frame.getHeight() > screen.height) {
+            frame.setSize(Math.min(frame.getWidth(), screen.width), Math.min(frame.getHeight(), screen.height));
+            frame.setLocationRelativeTo(null);
+        }
     }
 
     /**
@@ -275,17 +384,77 @@ public class GameGUI
      */
     private void startGame(BoardType type)
     {
-        board = new Board(type); 
-        if(!isFirstStart) {
-            clearPreviousCentralContainer();
-            container.add(board, BorderLayout.CENTER);
-            frame.pack();
+        long start = BOARD_TIME.start();
+        showBoard(type, pool.take(type), 0);
+        BOARD_TIME.stop(start);
+    }
+
+    /**
+     * Resume the game which was saved when the player quit last time.
+     * @return True if a saved game has been resumed.
+     */
+    private boolean resumeGame()
+    {
+        GameSnapshot snapshot;
+        try {
+            snapshot = GameSnapshot.load(SNAPSHOT_FILE);
+        } catch (IOException e) {
+            System.err.println("Saved game not loaded: " + e.getMessage());
+            return false;
+        }
+        if(snapshot == null || snapshot.getBoardType() == null || !snapshot.getBoardType().isPlayable()) {
+            return false;
+        }
+
+        BoardType type = snapshot.getBoardType();
+        isResuming = true;
+        levelButtons[type.ordinal()].setSelected(true);
+        isResuming = false;
+        long start = BOARD_TIME.start();
+        showBoard(type, snapshot.getEngine(), snapshot.getMillis());
+        BOARD_TIME.stop(start);
+        return true;
+    }
+
+    /**
+     * Save the current game if it has been started and not finished,
+     * so that it can be resumed. Otherwise remove the saved game.
+     */
+    private void saveGame()
+    {
+        try {
+            if(board != null && board.eng.getMoves() > 0 && !board.eng.isWon()) {
+                GameSnapshot.save(SNAPSHOT_FILE, board.type, (int)clock.getMillis(), board.eng);
+            } else {
+                GameSnapshot.delete(SNAPSHOT_FILE);
+            }
+        } catch (IOException e) {
+            System.err.println("Game not saved: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Show a game in the central part of the GUI and start its counters.
+     * The board is created for the first game and reset for every other
+     * one, and the frame is packed only when the board changes its size.
+     * @param type The type of the board.
+     * @param eng The engine of the game.
+     * @param startMillis The time the game has already been played.
+     */
+    private void showBoard(BoardType type, PairEngine eng, long startMillis)
+    {
+        boolean resized = board == null || board.rows != type.getRows() || board.cols != type.getCols();
+        if(board == null) {
+            board = new Board(type, eng);
+            scrollPane.setViewportView(board);
         } else {
-            isFirstStart = false;
-            container.add(board, BorderLayout.CENTER);
+            board.bind(type, eng);
+        }
+        if(resized) {
             frame.pack();
+            fitFrameToScreen();
         }
-        initializeCounters();
+        initializeCounters(startMillis);
         pauseBox.setEnabled(true);
         soundBox.setEnabled(true);
         pauseBox.setSelected(false);
@@ -296,19 +465,151 @@ public class GameGUI
      */
     private void quit()
     {
+        saveGame();
+        closeJournal();
+        closeLeaderboard();
+        exportMetrics();
         System.exit(0);
     }
 
     /**
-     * Action performed when the player win
-     * the game.
+     * Write the metrics to the file given with the system
+     * property memorygame.metrics, if there is one.
+     */
+    private void exportMetrics()
+    {
+        Path file = Metrics.getExportFile();
+        if(file != null) {
+            try {
+                Metrics.export(file);
+            } catch (IOException e) {
+                System.err.println("Metrics not exported: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Open the journal of the games, if a file has been
+     * given with the system property memorygame.journal.
+     */
+    private void openJournal()
+    {
+        String file = System.getProperty(JOURNAL_PROPERTY);
+        if(file != null) {
+            try {
+                journal = new MoveJournal(Paths.get(file));
+            } catch (IOException e) {
+                journalFailed(e);
+            }
+        }
+    }
+
+    /**
+     * End the game in the journal and close its file.
+     */
+    private void closeJournal()
+    {
+        if(journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                journalFailed(e);
+            }
+        }
+    }
+
+    /**
+     * Stop recording the games after the journal could not be written.
+     * @param e The error of the journal.
+     */
+    private void journalFailed(IOException e)
+    {
+        System.err.println("Move journal disabled: " + e.getMessage());
+        journal = null;
+    }
+
+    /**
+     * Open the leaderboard of the won games.
+     */
+    private void openLeaderboard()
+    {
+        try {
+            leaderboard = new Leaderboard(SCORES_FILE);
+        } catch (IOException e) {
+            leaderboardFailed(e);
+        }
+    }
+
+    /**
+     * Close the file of the leaderboard.
+     */
+    private void closeLeaderboard()
+    {
+        if(leaderboard != null) {
+            try {
+                leaderboard.close();
+            } catch (IOException e) {
+                leaderboardFailed(e);
+            }
+        }
+    }
+
+    /**
+     * Stop storing the results after the leaderboard could not be written.
+     * @param e The error of the leaderboard.
+     */
+    private void leaderboardFailed(IOException e)
+    {
+        System.err.println("High scores disabled: " + e.getMessage());
+        leaderboard = null;
+    }
+
+    /**
+     * Add the result of the current board to the leaderboard.
+     */
+    private void recordScore()
+    {
+        if(leaderboard != null) {
+            try {
+                leaderboard.record(new Score(board.type, board.eng.getSeed(), board.eng.getMoves()/2, (int)clock.getMillis(), System.currentTimeMillis()));
+            } catch (IOException e) {
+                leaderboardFailed(e);
+            }
+        }
+    }
+
+    /**
+     * Display the best results of the selected level.
+     */
+    private void displayHighScores()
+    {
+        if(leaderboard == null) {
+            JOptionPane.showMessageDialog(frame, "The high scores are not available.", "High Scores", JOptionPane.PLAIN_MESSAGE);
+            return;
+        }
+        BoardType type = board.type;
+        StringBuilder sb = new StringBuilder(type.name() + ", " + leaderboard.getCount(type) + " games won\n\n");
+        int place = 1;
+        for(Score score : leaderboard.getTop(type, HIGH_SCORES)) {
+            sb.append(String.format("%2d.  %5d attempts  %8.1f seconds  %tF%n", place++, score.getAttempts(), score.getMillis() / 1000.0, score.getDate()));
+        }
+        JTextArea text = new JTextArea(sb.toString());
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setEditable(false);
+        JOptionPane.showMessageDialog(frame, text, "High Scores", JOptionPane.PLAIN_MESSAGE);
+    }
+
+    /**
+     * Action performed when the last pair of a won
+     * game has been closed. The game has already been
+     * recorded when its last pair was matched.
      */
     private void onWin()
     {
-        tR.stop();
+        stopClock();
         pauseBox.setEnabled(false);
         soundBox.setEnabled(false);
-        if(displayWinMessage() == 0) {
+        if(displayWinMessage(board.winMessage) == 0) {
             newGame();
         }
     }
@@ -316,11 +617,12 @@ public class GameGUI
     /**
      * Display win message and ask the user if he/she
      * would like to start a new game.
+     * @param message The message of the dialog.
      * @return The result of the query.
      */
-    private int displayWinMessage()
+    private int displayWinMessage(String message)
     {
-        return JOptionPane.showConfirmDialog(frame, board.generateWinMessage(), "Game Won", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        return JOptionPane.showConfirmDialog(frame, message, "Game Won", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
     }
 
     /**
@@ -339,190 +641,464 @@ public class GameGUI
         JOptionPane.showMessageDialog(frame, HELP_MESSAGE, "Help", JOptionPane.PLAIN_MESSAGE);
     }
 
+    /**
+     * Display the latency metrics recorded so far, in microseconds.
+     */
+    private void displayMetrics()
+    {
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        Metrics.dump(new PrintStream(table, true));
+        JTextArea text = new JTextArea(table.toString());
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setEditable(false);
+        JOptionPane.showMessageDialog(frame, text, "Metrics (\u00b5s)", JOptionPane.PLAIN_MESSAGE);
+    }
+
     /**
      * This class is responsible for constructing the board of the game.
-     * The board is a panel with button.
+     * The board is a single component which paints all cards from the
+     * cached images and finds the card under the mouse arithmetically.
+     * Only the cards that change are repainted. The board is shown in a
+     * scroll pane and only the cards in view are painted, so a board
+     * larger than the screen costs no more to show than a small one.
+     * The board follows the game through the events of its PairEngine.
      * 
      * @author Daniel Krastev
      * @version 01/04/2016
      */
-    private class Board extends JPanel
+    private class Board extends JComponent implements Scrollable, EngineListener
     {
-        private final static String PATH_BACK_FILE = "/memorygame/resources/images/active/back.jpg";
-        private final static String PATH_SOUND_FILE = "/memorygame/resources/sounds/button.wav";
-        //The game logic used to manipulate the buttons.
-        private final PairEngine eng;
+        private final static int CELL_WIDTH = 160;
+        private final static int CELL_HEIGHT = 107;
+        //The states of a cell on the board.
+        private final static byte HIDDEN = 0, OPEN = 1, MATCHED = 2;
+        //The game logic used to manipulate the cards.
+        private PairEngine eng;
+        private BoardType type;
+        private int rows, cols;
+        //The state of every cell, stored row by row, kept for the next game of the same size.
+        private byte[] cellState;
         private Timer t;
-        private JButton firstButton, secondButton;
-        private int result;
-        private String imageFile;
-        
-        //Sound
-        private AudioInputStream audioInputStream;
-        Clip clip;
-        FloatControl volCtrl;
-        
+        //The cells of the pair currently opened, -1 if there is none.
+        private int firstCell = -1, secondCell = -1;
+        //The state of the opened pair once it is closed, and whether it was the last pair.
+        private byte closedState;
+        private boolean won;
+        //The message shown once the last pair is closed, generated when the game is won.
+        private String winMessage;
+        //When the board is paused the closed cards cannot be opened.
+        private boolean paused;
+        //True if the moves of this board are recorded in the journal.
+        private boolean recorded;
+        //The size of a cell with the current zoom.
+        private int cellWidth, cellHeight;
+
         /**
-         * Create the new board instance.
+         * Create a board for a game which may already be in progress.
          * @param bt The type of the board to be used.
+         * @param eng The engine of the game.
          */
-        public Board(BoardType bt)
+        public Board(BoardType bt, PairEngine eng)
         {
-            super(new GridLayout(bt.getRows(), bt.getCols()));
-            eng = new PairEngine(bt.getRows(), bt.getCols());
-            addButtons(bt.getRows(), bt.getCols());
             prepareTimer();
+            bind(bt, eng);
+            setOpaque(true);
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    if(SwingUtilities.isLeftMouseButton(e)) {
+                        pressCell(e.getX(), e.getY());
+                    }
+                }
+            });
+            addMouseWheelListener((MouseWheelEvent e) -> {
+                if(e.isControlDown()) {
+                    zoom(zoomLevel - e.getWheelRotation(), e.getPoint());
+                } else {
+                    //Let the scroll pane scroll the board.
+                    getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+                }
+            });
+        }
+
+        /**
+         * Show another game on this board, keeping the component, its
+         * listeners and its timer. The cell states are reused when the
+         * new game has as many cells as the last one. A won game whose
+         * last pair is still open has already been recorded, so it is
+         * left without its win message.
+         * Only games which start from the beginning are recorded in the journal.
+         * @param bt The type of the board to be used.
+         * @param eng The engine of the game, which may already be in progress.
+         */
+        private void bind(BoardType bt, PairEngine eng)
+        {
+            t.stop();
+            if(this.eng != null) {
+                this.eng.removeListener(this);
+            }
+            boolean resized = bt.getRows() != rows || bt.getCols() != cols;
+            this.eng = eng;
+            type = bt;
+            rows = bt.getRows();
+            cols = bt.getCols();
+            if(cellState == null || cellState.length != rows * cols) {
+                cellState = new byte[rows * cols];
+            } else {
+                Arrays.fill(cellState, HIDDEN);
+            }
+            for(int cell = 0; cell < cellState.length; cell++) {
+                if(eng.isMatched(cell / cols, cell % cols)) {
+                    cellState[cell] = MATCHED;
+                }
+            }
+            firstCell = -1;
+            secondCell = -1;
+            won = false;
+            paused = false;
+            if(eng.firstRow < rows && eng.firstCol < cols) {
+                firstCell = eng.firstRow * cols + eng.firstCol;
+                cellState[firstCell] = OPEN;
+            }
+            recorded = false;
+            if(journal != null && eng.getMoves() == 0) {
+                try {
+                    journal.startGame(bt, eng);
+                    recorded = true;
+                } catch (IOException e) {
+                    journalFailed(e);
+                }
+            }
+            eng.addListener(this);
+            if(resized) {
+                applyZoom(ZOOM_LEVELS[zoomLevel]);
+                revalidate();
+            }
+            if(getParent() instanceof JViewport) {
+                ((JViewport)getParent()).setViewPosition(new Point(0, 0));
+            }
+            repaint();
         }
 
         /**
-         * Add new buttons to the board with specific views and names.
-         * @param r The rows of the engine's array.
-         * @param c The columns of the engine's array.
+         * Paint the cards which intersect the area to be repainted.
+         * @param g The graphics context of the board.
          */
-        private void addButtons(int r, int c)
+        @Override
+        protected void paintComponent(Graphics g)
         {
-            for(int x = 0; x < r; x++) {
-                for(int y = 0; y < c; y++) {
-                    String imgFile = "/memorygame/resources/images/active/" + eng.getValueAt(x,y) + ".jpg";
-                    final JButton b = new JButton();
-                    b.setIcon(new ImageIcon(getClass().getResource(PATH_BACK_FILE)));
-                    b.setPreferredSize(new Dimension(160, 107));
-                    b.setName(Integer.toString(x)+Integer.toString(y));
-                    b.addActionListener((ActionEvent e) -> {
-                        pressButton(b, imgFile);
-                    });
-                    add(b);          
+            Rectangle clip = g.getClipBounds();
+            if(clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+            Rectangle view = getVisibleRect();
+            int visibleCells = (view.width / cellWidth + 2) * (view.height / cellHeight + 2);
+            CardImages.setCardSize(cellWidth, cellHeight, visibleCells);
+
+            int fromRow = Math.max(0, clip.y / cellHeight);
+            int toRow = Math.min(rows - 1, (clip.y + clip.height - 1) / cellHeight);
+            int fromCol = Math.max(0, clip.x / cellWidth);
+            int toCol = Math.min(cols - 1, (clip.x + clip.width - 1) / cellWidth);
+            for(int r = fromRow; r <= toRow; r++) {
+                for(int c = fromCol; c <= toCol; c++) {
+                    cellIcon(r * cols + c).paintIcon(this, g, c * cellWidth, r * cellHeight);
                 }
             }
         }
 
+        /**
+         * Choose the image of a cell from its current state.
+         * @param cell The index of the cell.
+         * @return The image to be painted.
+         */
+        private Icon cellIcon(int cell)
+        {
+            long start = ICON_TIME.start();
+            Icon icon;
+            switch(cellState[cell]) {
+                case OPEN: icon = CardImages.getActive(eng.getFaceAt(cell / cols, cell % cols));
+                break;
+                case MATCHED: icon = CardImages.getInactive(eng.getFaceAt(cell / cols, cell % cols));
+                break;
+                default: icon = paused ? CardImages.getDisabledBack() : CardImages.getBack();
+            }
+            ICON_TIME.stop(start);
+            return icon;
+        }
+
+        /**
+         * Change the state of a cell and repaint it.
+         * @param cell The index of the cell.
+         * @param state The new state of the cell.
+         */
+        private void setCellState(int cell, byte state)
+        {
+            cellState[cell] = state;
+            repaintCell(cell);
+        }
+
+        /**
+         * Repaint only the area of one cell.
+         * @param cell The index of the cell.
+         */
+        private void repaintCell(int cell)
+        {
+            repaint((cell % cols) * cellWidth, (cell / cols) * cellHeight, cellWidth, cellHeight);
+        }
+
+        /**
+         * Change the size of the cells and keep a point of the
+         * board at the same place in the view.
+         * @param zoom The new zoom, 1 for the size of the images.
+         * @param anchor The point of the board which stays in place, null for the middle of the view.
+         */
+        private void setZoom(double zoom, Point anchor)
+        {
+            Rectangle view = getVisibleRect();
+            if(anchor == null) {
+                anchor = new Point(view.x + view.width / 2, view.y + view.height / 2);
+            }
+            double oldWidth = cellWidth, oldHeight = cellHeight;
+            applyZoom(zoom);
+            setSize(getPreferredSize());
+            int x = (int)Math.round(anchor.x * cellWidth / oldWidth) - (anchor.x - view.x);
+            int y = (int)Math.round(anchor.y * cellHeight / oldHeight) - (anchor.y - view.y);
+            x = Math.max(0, Math.min(x, getWidth() - view.width));
+            y = Math.max(0, Math.min(y, getHeight() - view.height));
+            if(getParent() instanceof JViewport) {
+                ((JViewport)getParent()).setViewPosition(new Point(x, y));
+            }
+            revalidate();
+            repaint();
+        }
+
+        /**
+         * Compute the size of the cells and of the board for a zoom.
+         * @param zoom The zoom, 1 for the size of the images.
+         */
+        private void applyZoom(double zoom)
+        {
+            cellWidth = Math.max(1, (int)Math.round(CELL_WIDTH * zoom));
+            cellHeight = Math.max(1, (int)Math.round(CELL_HEIGHT * zoom));
+            setPreferredSize(new Dimension(cols * cellWidth, rows * cellHeight));
+        }
+
+        @Override
+        public Dimension getPreferredScrollableViewportSize()
+        {
+            return getPreferredSize();
+        }
+
+        @Override
+        public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction)
+        {
+            return orientation == SwingConstants.VERTICAL ? cellHeight : cellWidth;
+        }
+
+        @Override
+        public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction)
+        {
+            if(orientation == SwingConstants.VERTICAL) {
+                return Math.max(cellHeight, visibleRect.height - cellHeight);
+            }
+            return Math.max(cellWidth, visibleRect.width - cellWidth);
+        }
+
+        @Override
+        public boolean getScrollableTracksViewportWidth()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean getScrollableTracksViewportHeight()
+        {
+            return false;
+        }
+
+        /**
+         * Pause or resume the board. While the board is paused
+         * the closed cards are grey and cannot be opened, so the
+         * cards in view are repainted.
+         * @param paused True to pause the board.
+         */
+        private void setPaused(boolean paused)
+        {
+            this.paused = paused;
+            repaint(getVisibleRect());
+        }
+
         /**
          * Prepare the timer.
          */
         private void prepareTimer()
         {
             t = new Timer(500, (ActionEvent ae) -> {
-                viewResult(result);
+                closePair(closedState);
+                if(won) {
+                    onWin();
+                }
             });
             t.setRepeats(false);
         }
 
         /**
-         * Method used to evaluate the result of the comparison returned 
-         * from the PairEngine.This method is used after the second button 
-         * that has been pressed.
-         * @param result The result which is to be evaluated.
+         * The action which is executed after a card is pressed.
+         * The PairEngine checks the card and the board is changed
+         * by the events which it publishes.
+         * @param x The x coordinate of the mouse on the board.
+         * @param y The y coordinate of the mouse on the board.
          */
-        private void viewResult(int result)
+        private void pressCell(int x, int y)
         {
-            switch(result) {
-                case -1: notMatching();
-                break;
-                case 1: matching();
-                break;
+            int r = y / cellHeight;
+            int c = x / cellWidth;
+            if(paused || x < 0 || y < 0 || r >= rows || c >= cols) {
+                return;
+            }
+            int cell = r * cols + c;
+            if(secondCell < 0 && cellState[cell] == HIDDEN) {
+                long start = FLIP_TIME.start();
+                //The move is recorded first, as the last move ends the game in the journal.
+                recordMove(r, c);
+                long check = CHECK_TIME.start();
+                eng.checkResult(r, c);
+                CHECK_TIME.stop(check);
+                playSound();
+                FLIP_TIME.stop(start);
             }
         }
 
         /**
-         * The action which is executed after the button is pressed.
-         * Receive from the PairEngine the result of the comparison,
-         * between the two values, represented by the buttons and then
-         * evaluate the result.
-         * @param b The button currently pressed.
-         * @param file The string representation of the image file to be used for the certain button.
+         * Show the first card of a pair.
          */
-        private void pressButton(JButton b, String file)
+        @Override
+        public void flipped(int cell, int card)
         {
-            if(!(firstButton != null && secondButton != null)) {
-                clearSound();
-                imageFile = file;
-                result = eng.checkResult(Integer.parseInt(b.getName().substring(0,1)), Integer.parseInt(b.getName().substring(1,2)));
-                playSound();
+            firstCell = cell;
+            setCellState(firstCell, OPEN);
+        }
 
-                if(result == -1 || result == 1) {   // If this is the second of the pair buttons pressed.
-                    updateAttempts();
-                    secondButton = b;
-                    secondButton.setIcon(new ImageIcon(getClass().getResource(imageFile)));
-                    t.start();
-                } 
+        /**
+         * Show the second card of a pair, which stays open as a matched card.
+         */
+        @Override
+        public void matched(int firstCell, int secondCell, int card, int attempts)
+        {
+            showSecond(secondCell, MATCHED, attempts);
+        }
 
-                if(result == 0) {   // If this is the first button of the pair buttons that is pressed.
-                    firstButton = b;
-                    firstButton();
-                }
-            }
+        /**
+         * Show the second card of a pair, after which both cards are hidden again.
+         */
+        @Override
+        public void mismatched(int firstCell, int firstCard, int secondCell, int secondCard, int attempts)
+        {
+            showSecond(secondCell, HIDDEN, attempts);
         }
 
         /**
-         * If the result from the PairEngine is that these buttons do not match,
-         * then this method is executed. Close the two buttons and hide the images.
+         * Stop the clock at the last move and record the game right away,
+         * so that it is kept even when a new game is started before the
+         * last pair is closed. The win message is only shown once the
+         * last pair is closed on this board.
          */
-        private void notMatching()
+        @Override
+        public void won(int attempts)
         {
-            firstButton.setName(firstButton.getName().substring(0,2));
-            firstButton.setDisabledIcon(null);
-            firstButton.setIcon(new ImageIcon(getClass().getResource(PATH_BACK_FILE)));
-            secondButton.setIcon(new ImageIcon(getClass().getResource(PATH_BACK_FILE)));
-            if(!pauseBox.isSelected()) {
-                firstButton.setEnabled(true);
-            }
-            secondButton = null;
-            firstButton = null;
+            //A won game cannot be paused and resumed, which would start its clock again.
+            clock.pause();
+            pauseBox.setEnabled(false);
+            endJournalGame();
+            //The rank is taken among the earlier games, before this one is recorded.
+            winMessage = generateWinMessage();
+            recordScore();
+            won = true;
+        }
+
+        /**
+         * Show the second card of a pair and close the pair after a delay.
+         * Both cards are repainted in the same frame, as Swing merges
+         * the repaints of one event into a single paint.
+         * @param cell The index of the second cell.
+         * @param state The state of both cards when they are closed.
+         * @param attempts The number of attempts, including this one.
+         */
+        private void showSecond(int cell, byte state, int attempts)
+        {
+            updateAttempts(attempts);
+            secondCell = cell;
+            closedState = state;
+            setCellState(secondCell, OPEN);
+            t.start();
         }
 
         /**
-         * If the button pressed is the first button, then this
-         * method is executed.
+         * Forget the pair of cards currently opened and change their state.
+         * @param state The new state of both cards.
          */
-        private void firstButton()
-        {    
-            firstButton.setIcon(new ImageIcon(getClass().getResource(imageFile)));
-            firstButton.setDisabledIcon(new ImageIcon(getClass().getResource(imageFile)));
-            firstButton.setName(firstButton.getName() + "F");
-            firstButton.setEnabled(false);
+        private void closePair(byte state)
+        {
+            setCellState(firstCell, state);
+            setCellState(secondCell, state);
+            secondCell = -1;
+            firstCell = -1;
         }
 
         /**
-         * If the result from the PairEngine is that these buttons match,
-         * then this method is executed. Leave these buttons open and show new images.
+         * Record a move in the journal.
+         * @param r The row of the move.
+         * @param c The column of the move.
          */
-        private void matching()
+        private void recordMove(int r, int c)
         {
-            firstButton.setDisabledIcon(new ImageIcon(getClass().getResource(imageFile.replace("active", "inactive"))));
-            secondButton.setDisabledIcon(new ImageIcon(getClass().getResource(imageFile.replace("active", "inactive"))));
-            firstButton.setName("d");
-            secondButton.setName("d");
-            firstButton.setEnabled(false);
-            secondButton.setEnabled(false);
-            secondButton = null;
-            firstButton = null;
-            if(eng.isWon()) {
-                clearSound();
-                onWin();
+            if(journal != null && recorded) {
+                try {
+                    journal.recordMove(r, c);
+                } catch (IOException e) {
+                    journalFailed(e);
+                }
             }
         }
 
         /**
-         * Update the label for the attempts, using the value of the 'moves'
-         * from the PairEngine.
+         * End the game in the journal, after it has been won.
          */
-        private void updateAttempts()
+        private void endJournalGame()
         {
-            if(seconds < 10 ) {
-                attemptsLabel.setText("ATTEMPTS: 00" + eng.getMoves() / 2);
-            } else if(seconds < 100) {
-                attemptsLabel.setText("ATTEMPTS: 0" + eng.getMoves() / 2);
-            } else {
-                attemptsLabel.setText("ATTEMPTS: " + eng.getMoves() / 2);
+            if(journal != null && recorded) {
+                try {
+                    journal.endGame();
+                } catch (IOException e) {
+                    journalFailed(e);
+                }
             }
         }
 
+        /**
+         * Update the label for the attempts.
+         * @param attempts The number of attempts from the PairEngine.
+         */
+        private void updateAttempts(int attempts)
+        {
+            attemptsLabel.setValue(attempts);
+        }
+
         /**
          * Generate message, that will be used for the 'Game Won' pop up message.
+         * The rank compares the game with the games already in the leaderboard,
+         * so the message is generated before the game is recorded.
          */
         private String generateWinMessage()
         {
-            return "Congratulations, you won the game!\n\n" + "Attempts: " + eng.getMoves()/2 + "\n" + "Time: " + seconds + " seconds\n\n\n"
+            String rank = "";
+            if(leaderboard != null && leaderboard.getCount(type) > 0) {
+                rank = String.format("Better than %.0f%% of your games on this level\n", leaderboard.getPercentileRank(type, eng.getMoves()/2));
+            }
+            return "Congratulations, you won the game!\n\n" + "Attempts: " + eng.getMoves()/2 + "\n" + String.format("Time: %.1f seconds\n", clock.getMillis() / 1000.0) + rank + "\n\n"
             + "Would you like to start a new game ?"; 
         }
 
@@ -531,17 +1107,10 @@ public class GameGUI
          */
         private void playSound() {
             if (soundBox.isSelected()) {
-                try {
-                    clip = AudioSystem.getClip();
-                    audioInputStream = AudioSystem.getAudioInputStream(getClass().getResource(PATH_SOUND_FILE));
-                    clip.open(audioInputStream);
-                    volCtrl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-                    volCtrl.setValue(-25.0f);
-                    clip.setFramePosition(0);
-                    clip.start();
-                } catch (IOException | LineUnavailableException | UnsupportedAudioFileException e) {
-                    System.err.println(e.getMessage());
+                if (sound.hasFailed()) {
                     soundBox.setSelected(false);
+                } else {
+                    sound.play();
                 }
             } 
         }
@@ -553,13 +1122,5 @@ public class GameGUI
         {
             return eng.aboutGame();
         }
-
-        private void clearSound() {
-            if(clip != null) {
-                clip.stop();
-                clip.flush();
-                clip.close();
-            }
-        }
     }
 }
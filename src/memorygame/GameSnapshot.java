@@ -0,0 +1,168 @@
+package memorygame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A saved game which has not been finished. The snapshot is a binary
+ * file with a fixed layout, which is read back in one bulk read without
+ * reflection or Java serialization. The header has a version and a
+ * checksum, so old or damaged files are rejected before they are used.
+ * <pre>
+ * header:  int MAGIC, int VERSION, int payload length, long CRC32 of the payload
+ * payload: int boardType (ordinal + 1, 0 if none), int milliseconds played, PairEngine state
+ * </pre>
+ * Snapshots of version 1 stored the time in seconds and are still read.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class GameSnapshot
+{
+    private final static int MAGIC = 0x4D475331; //"MGS1"
+    private final static int VERSION = 2;
+    private final static int HEADER_SIZE = 4 + 4 + 4 + 8;
+    //Snapshots larger than this are not read.
+    private final static long MAX_SIZE = 256L * 1024 * 1024;
+
+    private final BoardType type;
+    private final int millis;
+    private final PairEngine eng;
+
+    private GameSnapshot(BoardType type, int millis, PairEngine eng)
+    {
+        this.type = type;
+        this.millis = millis;
+        this.eng = eng;
+    }
+
+    /**
+     * Write a snapshot of a game. The file is replaced atomically,
+     * so an old snapshot is never half overwritten.
+     * @param file The snapshot file.
+     * @param type The BoardType of the game, or null if the board has another size.
+     * @param millis The time the game has been played, in milliseconds.
+     * @param eng The engine of the game.
+     */
+    static void save(Path file, BoardType type, int millis, PairEngine eng) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 8 + eng.stateSize());
+        buffer.position(HEADER_SIZE);
+        buffer.putInt(type == null ? 0 : type.ordinal() + 1);
+        buffer.putInt(millis);
+        eng.writeState(buffer);
+        int length = buffer.position() - HEADER_SIZE;
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, length);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, length).putLong(12, crc.getValue());
+        buffer.flip();
+
+        if(file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a snapshot of a game.
+     * @param file The snapshot file.
+     * @return The snapshot, or null if there is no file or it is
+     * of another version, damaged or not a snapshot at all.
+     */
+    static GameSnapshot load(Path file) throws IOException
+    {
+        if(!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < HEADER_SIZE || size > MAX_SIZE) {
+                return null;
+            }
+            buffer = ByteBuffer.allocate((int)size);
+            while(buffer.hasRemaining()) {
+                if(channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+        }
+        buffer.flip();
+        if(buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            return null;
+        }
+        int version = buffer.getInt();
+        if((version != 1 && version != VERSION) || buffer.getInt() != buffer.remaining() - 8) {
+            return null;
+        }
+        long checksum = buffer.getLong();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, buffer.remaining());
+        if(crc.getValue() != checksum) {
+            return null;
+        }
+
+        try {
+            BoardType[] types = BoardType.values();
+            int type = buffer.getInt();
+            int millis = buffer.getInt();
+            if(version == 1) {
+                millis *= 1000;
+            }
+            PairEngine eng = PairEngine.readState(buffer);
+            return new GameSnapshot(type > 0 && type <= types.length ? types[type - 1] : null, millis, eng);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Delete a snapshot, after its game has been finished.
+     * @param file The snapshot file.
+     */
+    static void delete(Path file) throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Return the BoardType of the saved game.
+     * @return The BoardType, or null if the board has another size.
+     */
+    BoardType getBoardType()
+    {
+        return type;
+    }
+
+    /**
+     * Return the time the saved game had been played.
+     * @return The time in milliseconds.
+     */
+    int getMillis()
+    {
+        return millis;
+    }
+
+    /**
+     * Return the engine of the saved game.
+     * @return The engine, in the state it was saved.
+     */
+    PairEngine getEngine()
+    {
+        return eng;
+    }
+}
@@ -0,0 +1,135 @@
+package memorygame;
+
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import javax.swing.JComponent;
+import javax.swing.UIManager;
+
+/**
+ * A counter of the head-up display, such as "TIME: 007". The caption
+ * and the ten digits are drawn into images once, and the counter is then
+ * painted from those images, so changing and painting the value creates
+ * no strings or other objects. The value is shown with at least MIN_DIGITS
+ * digits and the counter is repainted only when its value changes.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class HudCounter extends JComponent
+{
+    private static final long serialVersionUID = 1L;
+
+    private final static int MIN_DIGITS = 3;
+
+    private final String caption;
+    private int value;
+    //The pre-rendered caption and digits, drawn again when the font changes.
+    private BufferedImage captionImage;
+    private final BufferedImage[] digitImages = new BufferedImage[10];
+    private Font glyphFont;
+    private int digitWidth;
+
+    /**
+     * Create a new HudCounter which shows 0.
+     * @param caption The text in front of the value, for example "TIME: ".
+     */
+    HudCounter(String caption)
+    {
+        this.caption = caption;
+        setFont(UIManager.getFont("Label.font"));
+        setForeground(UIManager.getColor("Label.foreground"));
+    }
+
+    /**
+     * Change the value shown.
+     * @param value The new value, at least 0.
+     */
+    void setValue(int value)
+    {
+        if(value != this.value) {
+            this.value = Math.max(0, value);
+            repaint();
+        }
+    }
+
+    /**
+     * Return the value shown.
+     * @return The value.
+     */
+    int getValue()
+    {
+        return value;
+    }
+
+    @Override
+    public Dimension getPreferredSize()
+    {
+        FontMetrics metrics = getFontMetrics(getFont());
+        int width = metrics.stringWidth(caption) + MIN_DIGITS * metrics.charWidth('0');
+        return new Dimension(width, metrics.getHeight());
+    }
+
+    /**
+     * Paint the caption and the digits of the value, centered.
+     * @param g The graphics context of the counter.
+     */
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        if(glyphFont != getFont()) {
+            renderGlyphs();
+        }
+        int digits = 1;
+        for(int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, MIN_DIGITS);
+        int width = captionImage.getWidth() + digits * digitWidth;
+        int x = (getWidth() - width) / 2;
+        int y = (getHeight() - captionImage.getHeight()) / 2;
+        g.drawImage(captionImage, x, y, null);
+
+        int rest = value;
+        for(int i = digits - 1; i >= 0; i--) {
+            g.drawImage(digitImages[rest % 10], x + captionImage.getWidth() + i * digitWidth, y, null);
+            rest /= 10;
+        }
+    }
+
+    /**
+     * Draw the caption and the digits in the current font and colour.
+     */
+    private void renderGlyphs()
+    {
+        glyphFont = getFont();
+        FontMetrics metrics = getFontMetrics(glyphFont);
+        digitWidth = 0;
+        for(char c = '0'; c <= '9'; c++) {
+            digitWidth = Math.max(digitWidth, metrics.charWidth(c));
+        }
+        captionImage = renderText(caption, metrics, Math.max(1, metrics.stringWidth(caption)));
+        for(int d = 0; d < 10; d++) {
+            digitImages[d] = renderText(String.valueOf((char)('0' + d)), metrics, digitWidth);
+        }
+    }
+
+    /**
+     * Draw a text centered into a new transparent image.
+     */
+    private BufferedImage renderText(String text, FontMetrics metrics, int width)
+    {
+        BufferedImage image = new BufferedImage(width, Math.max(1, metrics.getHeight()), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(glyphFont);
+        g.setColor(getForeground());
+        g.drawString(text, (width - metrics.stringWidth(text)) / 2, metrics.getAscent());
+        g.dispose();
+        return image;
+    }
+}
@@ -1,9 +1,9 @@
 package memorygame;
 
-import java.util.List;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
 
 /**
  * This is a game logic class.The purpose of the class is 
@@ -18,14 +18,34 @@ import java.util.Arrays;
 public class PairEngine
 {
     private final static String ABOUT_VERSION = "Version 1.0 \nAuthor: Daniel K.";
+    private final static EngineListener[] NO_LISTENERS = {};
+    //The results of checkResult.
+    public final static int MISMATCHED = -1, FLIPPED = 0, MATCHED = 1, REJECTED = 2;
+    //The row and column of the rejected event of a cell index outside of the board.
+    public final static int OUTSIDE = Integer.MIN_VALUE;
 
-    //The array which will stores the random pairs.
-    private String[][] stringArray;
-    //The pair of values currently selected from the user.
-    private String firstValue, secondValue;  
+    //The dimensions of the board.
+    private int rows, cols;
+    //The seed of the deal, so that the same board can be dealt again.
+    private long seed;
+    //The card ids of the board, stored row by row. Only one of the two arrays
+    //is used: shortCards when every card id fits in a short, intCards otherwise.
+    private short[] shortCards;
+    private int[] intCards;
+    //The permutation which gives the card of every cell of a lazy board, null if the cards are stored.
+    private CellPermutation permutation;
+    //The cells which have already been matched, in lazyMatched for a lazy board.
+    private BitSet matched;
+    private SparseBitmap lazyMatched;
+    //The pair of values currently selected from the user, -1 if there is none.
+    private int firstValue, secondValue;
     public int firstRow, firstCol, maxLength;
     //The number of moves that the player has done.
     private int moves;
+    //Counters of the game state, updated on every move.
+    private int remainingPairs, matchedPairs, misses, firstFlips;
+    //The listeners of the events, replaced by a new array when it changes.
+    private EngineListener[] listeners = NO_LISTENERS;
 
     /**
      * Create new PairEngine.
@@ -34,10 +54,61 @@ public class PairEngine
      */
     public PairEngine(int rows, int cols)
     {
+        this(rows, cols, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Create new PairEngine with a reproducible deal.
+     * @param rows The number of rows for the pair engine.
+     * @param cols The number of columns for the pair engine.
+     * @param seed The seed of the deal. The same seed gives the same board.
+     */
+    public PairEngine(int rows, int cols, long seed)
+    {
+        checkDimensions(rows, cols);
+        this.rows = rows;
+        this.cols = cols;
+        this.seed = seed;
+        matched = new BitSet(rows*cols);
+        remainingPairs = rows*cols/2;
         createRandomArray(rows, cols);
         initializeFirstRowsCols(rows, cols);
-        firstValue = null;
-        secondValue = null;
+        initializeFirstSecondValue();
+    }
+
+    /**
+     * Create a PairEngine which does not store the deal. The card of a cell
+     * is computed from a seeded permutation of the cell indices whenever it
+     * is needed, and only the matched cells are kept in a compressed set,
+     * so even a board of a billion cells takes memory in proportion to the
+     * pairs that have been matched. A seed gives another board than the
+     * one of the other constructors, as the cards cannot be shuffled without
+     * storing them; GameSnapshot and MoveJournal record which deal was used.
+     * @param rows The number of rows for the pair engine.
+     * @param cols The number of columns for the pair engine.
+     * @param seed The seed of the deal. The same seed gives the same board.
+     * @return The new engine.
+     */
+    public static PairEngine lazy(int rows, int cols, long seed)
+    {
+        checkDimensions(rows, cols);
+        PairEngine eng = new PairEngine();
+        eng.rows = rows;
+        eng.cols = cols;
+        eng.seed = seed;
+        eng.permutation = new CellPermutation(rows*cols, seed);
+        eng.lazyMatched = new SparseBitmap(rows*cols);
+        eng.remainingPairs = rows*cols/2;
+        eng.initializeFirstRowsCols(rows, cols);
+        eng.initializeFirstSecondValue();
+        return eng;
+    }
+
+    /**
+     * Create an empty PairEngine, to be filled by readState.
+     */
+    private PairEngine()
+    {
     }
 
     /**
@@ -48,49 +119,85 @@ public class PairEngine
      * @param c The certain column of the array.
      * @return The result after the check. Could be:<br>
      * 
-     * -1 - If there is no match with the frist value.<br>
-     *  0 - If this is the first selected value.<br>
-     *  1 - If there is a match with the first value.<br>
-     *  2 - If the value on the selected place of the array is null, the same as the previous one or out of the array boundary.
+     * MISMATCHED (-1) - If there is no match with the frist value.<br>
+     * FLIPPED (0) - If this is the first selected value.<br>
+     * MATCHED (1) - If there is a match with the first value.<br>
+     * REJECTED (2) - If the value on the selected place of the array is null, the same as the previous one or out of the array boundary.<br>
+     * The listeners receive the same outcome as an event.
      */
     public int checkResult(int r, int c)
     {
-        int result; //If the value on the selected place of the array is null, the same as the previous one or out of the array boundary.
-
-        try
-        {
-            if(stringArray[r][c] != null && (firstRow != r || firstCol != c)) {
-                moves += 1;
-                if(firstValue == null) {
-                    result = 0;                           //If this is the first selected value. (0)
-                    firstValue = stringArray[r][c];
-                    firstRow = r;
-                    firstCol = c;
-                } else {
-                    secondValue = stringArray[r][c];
-                    if(secondValue.equals(firstValue)) {
-                        result = 1;                     //If there is a match with the first value. (1)
-                        stringArray[r][c] = null;
-                        stringArray[firstRow][firstCol] = null;
-                        initializeFirstSecondValue();
-                        initializeFirstRowsCols();
-                    } else {
-                        result = -1;                 //If there is no match with the frist value. (-1)
-                        initializeFirstSecondValue();
-                        initializeFirstRowsCols();
-                    }
-                }
+        if(r < 0 || r >= rows || c < 0 || c >= cols) {
+            fireRejected(r, c);
+            return REJECTED;
+        }
+        return check(r, c, r*cols + c);
+    }
+
+    /**
+     * Open a batch of cells, one after the other, as if checkResult
+     * was called for each of them. A cell outside of the board is
+     * rejected like any other illegal move, and its rejected event has
+     * OUTSIDE as the row and the column, as the index has neither.
+     * @param cells The indices of the cells, counted row by row.
+     * @param count The number of cells to be opened from the start of the array.
+     * @param results The array which receives the result of every cell, at the same index.
+     */
+    public void checkCells(int[] cells, int count, int[] results)
+    {
+        int size = rows*cols;
+        for(int i = 0; i < count; i++) {
+            int index = cells[i];
+            if(index < 0 || index >= size) {
+                fireRejected(OUTSIDE, OUTSIDE);
+                results[i] = REJECTED;
             } else {
-                result = 2;
+                results[i] = check(index / cols, index % cols, index);
             }
         }
-        catch (ArrayIndexOutOfBoundsException e)
-        {
-            System.out.println("Method checkResult used with illegal parameters:" +" rows: " + r + ", cols: " + c);
-            result = 2;
+    }
+
+    /**
+     * Open a cell which is on the board.
+     * @param r The row of the cell.
+     * @param c The column of the cell.
+     * @param index The index of the cell, counted row by row.
+     * @return The result, as for checkResult.
+     */
+    private int check(int r, int c, int index)
+    {
+        if(isMatched(index) || (firstRow == r && firstCol == c)) {
+            fireRejected(r, c);
+            return REJECTED;
         }
 
-        return result;
+        moves += 1;
+        if(firstValue < 0) {
+            firstFlips++;
+            firstValue = cardAt(index);
+            firstRow = r;
+            firstCol = c;
+            fireFlipped(index, firstValue);
+            return FLIPPED;
+        }
+
+        int first = firstRow*cols + firstCol;
+        int firstCard = firstValue;
+        int secondCard = cardAt(index);
+        secondValue = secondCard;
+        initializeFirstSecondValue();
+        initializeFirstRowsCols();
+        if(secondCard == firstCard) {
+            setMatched(index);
+            setMatched(first);
+            matchedPairs++;
+            remainingPairs--;
+            fireMatched(first, index, secondCard);
+            return MATCHED;
+        }
+        misses++;
+        fireMismatched(first, firstCard, index, secondCard);
+        return MISMATCHED;
     }
 
     /**
@@ -99,18 +206,7 @@ public class PairEngine
      */
     public boolean isWon()
     {
-        boolean isWon = true;
-        List<String> list = new ArrayList<>();
-        for (String[] array : stringArray) {
-            list.addAll(Arrays.asList(array));
-        }
-        for(String s : list) {
-            if(s != null) {
-                isWon = false;
-            }
-        }
-
-        return isWon;
+        return remainingPairs == 0;
     }
 
     /**
@@ -122,16 +218,297 @@ public class PairEngine
         return moves;
     }
 
+    /**
+     * Return the number of pairs that are still to be matched.
+     * @return The number of remaining pairs.
+     */
+    public int getRemainingPairs()
+    {
+        return remainingPairs;
+    }
+
+    /**
+     * Return the number of pairs that have been matched.
+     * @return The number of matched pairs.
+     */
+    public int getMatchedPairs()
+    {
+        return matchedPairs;
+    }
+
+    /**
+     * Return the number of attempts in which the two values did not match.
+     * @return The number of misses.
+     */
+    public int getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Return the number of times a first value of a pair has been opened.
+     * @return The number of first flips.
+     */
+    public int getFirstFlips()
+    {
+        return firstFlips;
+    }
+
     /**
      * Take two integer values for rows and columns and check
      * the value for these coordinates in the array.
      * @param r The number of row to be checked.
      * @param c The number of columns to be cheched.
-     * @return The value for of the array for these coordinates.
+     * @return The value for of the array for these coordinates,
+     * or null if the value has already been matched.
      */
     public String getValueAt(int r, int c)
     {
-        return stringArray[r][c];
+        int card = getCardAt(r, c);
+        return card < 0 ? null : String.valueOf(card);
+    }
+
+    /**
+     * Take two integer values for rows and columns and return
+     * the card id for these coordinates, without creating a String.
+     * @param r The number of row to be checked.
+     * @param c The number of columns to be cheched.
+     * @return The card id for these coordinates, or -1 if it has already been matched.
+     */
+    public int getCardAt(int r, int c)
+    {
+        if(r < 0 || r >= rows || c < 0 || c >= cols) {
+            throw new ArrayIndexOutOfBoundsException("rows: " + r + ", cols: " + c);
+        }
+        int index = r*cols + c;
+        return isMatched(index) ? -1 : cardAt(index);
+    }
+
+    /**
+     * Return the card id that was dealt to a cell, also when the
+     * cell has already been matched.
+     * @param r The number of row to be checked.
+     * @param c The number of columns to be cheched.
+     * @return The card id for these coordinates.
+     */
+    public int getFaceAt(int r, int c)
+    {
+        if(r < 0 || r >= rows || c < 0 || c >= cols) {
+            throw new ArrayIndexOutOfBoundsException("rows: " + r + ", cols: " + c);
+        }
+        return cardAt(r*cols + c);
+    }
+
+    /**
+     * Check whether a cell has already been matched.
+     * @param r The number of row to be checked.
+     * @param c The number of columns to be cheched.
+     * @return True if the cell has been matched.
+     */
+    public boolean isMatched(int r, int c)
+    {
+        if(r < 0 || r >= rows || c < 0 || c >= cols) {
+            throw new ArrayIndexOutOfBoundsException("rows: " + r + ", cols: " + c);
+        }
+        return isMatched(r*cols + c);
+    }
+
+    /**
+     * Return the seed of the deal.
+     * @return The seed that was used to deal the board.
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Return the number of rows of the board.
+     * @return The rows of the board.
+     */
+    public int getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * Return the number of columns of the board.
+     * @return The columns of the board.
+     */
+    public int getCols()
+    {
+        return cols;
+    }
+
+    /**
+     * Add a listener which receives the events of the game. The engine
+     * is not thread-safe, so listeners are added on the thread that plays.
+     * @param listener The listener to be added.
+     */
+    public void addListener(EngineListener listener)
+    {
+        EngineListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+        added[listeners.length] = listener;
+        listeners = added;
+    }
+
+    /**
+     * Remove a listener which has been added with addListener.
+     * @param listener The listener to be removed.
+     */
+    public void removeListener(EngineListener listener)
+    {
+        for(int i = 0; i < listeners.length; i++) {
+            if(listeners[i] == listener) {
+                EngineListener[] removed = new EngineListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, removed, 0, i);
+                System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+                listeners = removed.length == 0 ? NO_LISTENERS : removed;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Check whether the deal is computed cell by cell instead of stored.
+     * @return True if the engine was created with lazy.
+     */
+    public boolean isLazy()
+    {
+        return permutation != null;
+    }
+
+    /**
+     * Return the number of bytes that writeState needs. The state of a
+     * lazy engine holds the matched cells instead of the cards.
+     * @return The size of the state of the engine.
+     */
+    public int stateSize()
+    {
+        if(permutation != null) {
+            return 12*4 + 8 + 1 + 4*lazyMatched.cardinality();
+        }
+        int cardBytes = shortCards != null ? 2*shortCards.length : 4*intCards.length;
+        return 12*4 + 8 + 1 + cardBytes + 8*((rows*cols + 63) / 64);
+    }
+
+    /**
+     * Write the whole state of the game into a buffer, with a fixed layout
+     * that can be read back with readState.
+     * @param out The buffer, with at least stateSize() bytes remaining.
+     */
+    public void writeState(ByteBuffer out)
+    {
+        out.putInt(rows).putInt(cols).putLong(seed);
+        out.putInt(moves).putInt(remainingPairs).putInt(matchedPairs).putInt(misses).putInt(firstFlips);
+        out.putInt(firstRow).putInt(firstCol).putInt(firstValue);
+        if(permutation != null) {
+            //A lazy board is dealt again from the seed, only the matched cells are written.
+            out.put((byte)0).putInt(rows*cols);
+            int[] cells = lazyMatched.toArray();
+            out.putInt(cells.length);
+            out.asIntBuffer().put(cells);
+            out.position(out.position() + 4*cells.length);
+            return;
+        }
+        if(shortCards != null) {
+            out.put((byte)2).putInt(shortCards.length);
+            out.asShortBuffer().put(shortCards);
+            out.position(out.position() + 2*shortCards.length);
+        } else {
+            out.put((byte)4).putInt(intCards.length);
+            out.asIntBuffer().put(intCards);
+            out.position(out.position() + 4*intCards.length);
+        }
+        long[] words = matched.toLongArray();
+        int count = (rows*cols + 63) / 64;
+        out.putInt(count);
+        for(int i = 0; i < count; i++) {
+            out.putLong(i < words.length ? words[i] : 0);
+        }
+    }
+
+    /**
+     * Create an engine from a state written by writeState.
+     * @param in The buffer positioned at the state.
+     * @return The engine in the same state as the one that was written.
+     * @throws IllegalArgumentException If the state is not valid.
+     */
+    public static PairEngine readState(ByteBuffer in)
+    {
+        PairEngine eng = new PairEngine();
+        eng.rows = in.getInt();
+        eng.cols = in.getInt();
+        checkDimensions(eng.rows, eng.cols);
+        eng.seed = in.getLong();
+        eng.moves = in.getInt();
+        eng.remainingPairs = in.getInt();
+        eng.matchedPairs = in.getInt();
+        eng.misses = in.getInt();
+        eng.firstFlips = in.getInt();
+        eng.initializeFirstRowsCols(eng.rows, eng.cols);
+        eng.firstRow = in.getInt();
+        eng.firstCol = in.getInt();
+        eng.firstValue = in.getInt();
+        eng.secondValue = -1;
+        boolean noFirst = eng.firstRow == eng.maxLength && eng.firstCol == eng.maxLength;
+        if(!noFirst && (eng.firstRow < 0 || eng.firstRow >= eng.rows || eng.firstCol < 0 || eng.firstCol >= eng.cols)) {
+            throw new IllegalArgumentException("Illegal first value in the state");
+        }
+
+        int width = in.get();
+        int length = in.getInt();
+        if(length != eng.rows*eng.cols || (width != 0 && width != 2 && width != 4)) {
+            throw new IllegalArgumentException("Illegal card array in the state");
+        }
+        if(width == 0) {
+            eng.readLazyState(in);
+            return eng;
+        }
+        if(width == 2) {
+            eng.shortCards = new short[length];
+            in.asShortBuffer().get(eng.shortCards);
+        } else {
+            eng.intCards = new int[length];
+            in.asIntBuffer().get(eng.intCards);
+        }
+        in.position(in.position() + width*length);
+
+        long[] words = new long[in.getInt()];
+        if(words.length != (length + 63) / 64) {
+            throw new IllegalArgumentException("Illegal matched cells in the state");
+        }
+        in.asLongBuffer().get(words);
+        in.position(in.position() + 8*words.length);
+        eng.matched = BitSet.valueOf(words);
+        if(eng.remainingPairs + eng.matchedPairs != length/2 || eng.matched.cardinality() != 2*eng.matchedPairs) {
+            throw new IllegalArgumentException("Inconsistent counters in the state");
+        }
+        return eng;
+    }
+
+    /**
+     * Read the matched cells of a lazy engine written by writeState.
+     * @param in The buffer positioned at the matched cells.
+     */
+    private void readLazyState(ByteBuffer in)
+    {
+        int size = rows*cols;
+        int count = in.getInt();
+        if(count != 2*matchedPairs || remainingPairs + matchedPairs != size/2) {
+            throw new IllegalArgumentException("Inconsistent counters in the state");
+        }
+        permutation = new CellPermutation(size, seed);
+        lazyMatched = new SparseBitmap(size);
+        int previous = -1;
+        for(int i = 0; i < count; i++) {
+            int cell = in.getInt();
+            if(cell <= previous || cell >= size) {
+                throw new IllegalArgumentException("Illegal matched cells in the state");
+            }
+            lazyMatched.set(cell);
+            previous = cell;
+        }
     }
 
     /**
@@ -144,45 +521,126 @@ public class PairEngine
     }
 
     /**
-     * Fill a list with values depending on the number of rows
-     * and columns selected from the user.
-     * @param intList The list to be used.
+     * Initialize the main array that will be used in the game.
+     * Large boards are dealt in parallel.
      * @param rows The number of rows.
      * @param cols The number of columns.
      */
-    private void fillArrayList(ArrayList<Integer> intList, int rows, int cols)
+    private void createRandomArray(int rows, int cols)
     {
-        while(intList.size() != rows*cols) {
-            for(int i = 0; i < rows*cols/2; i++) {
-                intList.add(i);
-            }
-            fillArrayList(intList, rows, cols);
+        shortCards = Dealer.dealShorts(rows*cols, seed);
+        if(shortCards == null) {
+            intCards = Dealer.dealInts(rows*cols, seed);
         }
     }
 
     /**
-     * Initialize the main array that will be used in the game.
+     * Check whether a board can be created with these dimensions,
+     * so that every card has a pair and every cell has an index.
      * @param rows The number of rows.
      * @param cols The number of columns.
+     * @return True if an engine of this size can be created.
      */
-    private void createRandomArray(int rows, int cols)
+    public static boolean isLegalSize(int rows, int cols)
     {
-        ArrayList<Integer> intList = new ArrayList<Integer>();
-        fillArrayList(intList, rows, cols);
-        Collections.shuffle(intList);
+        long cells = (long)rows*cols;
+        return rows > 0 && cols > 0 && cells <= Integer.MAX_VALUE && cells % 2 == 0;
+    }
 
-        stringArray = new String[rows][cols];
-        String value = null;
+    /**
+     * Check that the board can be created with these dimensions.
+     * @param rows The number of rows.
+     * @param cols The number of columns.
+     * @throws IllegalArgumentException If the size is not legal.
+     */
+    static void checkDimensions(int rows, int cols)
+    {
+        if(!isLegalSize(rows, cols)) {
+            throw new IllegalArgumentException("Illegal board size: " + rows + "x" + cols);
+        }
+    }
 
-        for(int r = 0; r < rows; r++) {
-            for(int c = 0; c < cols; c++) {
-                value = String.valueOf(intList.get(0));
-                intList.remove(0);
-                stringArray[r][c] = value;
+    /**
+     * Publish a flipped event to every listener.
+     */
+    private void fireFlipped(int cell, int card)
+    {
+        for(EngineListener listener : listeners) {
+            listener.flipped(cell, card);
+        }
+    }
+
+    /**
+     * Publish a matched event, and a won event after the last pair, to every listener.
+     */
+    private void fireMatched(int firstCell, int secondCell, int card)
+    {
+        for(EngineListener listener : listeners) {
+            listener.matched(firstCell, secondCell, card, moves / 2);
+        }
+        if(remainingPairs == 0) {
+            for(EngineListener listener : listeners) {
+                listener.won(moves / 2);
             }
         }
     }
 
+    /**
+     * Publish a mismatched event to every listener.
+     */
+    private void fireMismatched(int firstCell, int firstCard, int secondCell, int secondCard)
+    {
+        for(EngineListener listener : listeners) {
+            listener.mismatched(firstCell, firstCard, secondCell, secondCard, moves / 2);
+        }
+    }
+
+    /**
+     * Publish a rejected event to every listener.
+     */
+    private void fireRejected(int r, int c)
+    {
+        for(EngineListener listener : listeners) {
+            listener.rejected(r, c);
+        }
+    }
+
+    /**
+     * Return the card id stored in a cell of the board.
+     * @param index The index of the cell, counted row by row.
+     * @return The card id of the cell.
+     */
+    private int cardAt(int index)
+    {
+        if(permutation != null) {
+            return permutation.apply(index) >> 1;
+        }
+        return shortCards != null ? shortCards[index] : intCards[index];
+    }
+
+    /**
+     * Check whether a cell of the board has been matched.
+     * @param index The index of the cell, counted row by row.
+     * @return True if the cell has been matched.
+     */
+    private boolean isMatched(int index)
+    {
+        return lazyMatched != null ? lazyMatched.get(index) : matched.get(index);
+    }
+
+    /**
+     * Mark a cell of the board as matched.
+     * @param index The index of the cell, counted row by row.
+     */
+    private void setMatched(int index)
+    {
+        if(lazyMatched != null) {
+            lazyMatched.set(index);
+        } else {
+            matched.set(index);
+        }
+    }
+
     /**
      * Initialize the value of the firstRow and firstCol,
      * that are used in the game logic.It gives them value that is
@@ -220,7 +678,7 @@ public class PairEngine
      */
     private void initializeFirstSecondValue()
     {
-        firstValue = null;
-        secondValue = null;
+        firstValue = -1;
+        secondValue = -1;
     }
 }
@@ -0,0 +1,261 @@
+package memorygame;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A game logic class for a board which is shared by several players
+ * at the same time. Every player joins the board and gets a Player,
+ * which keeps the card that player has opened. The state of every cell
+ * is changed with compare-and-set, so players who open different cells
+ * never wait for each other and a pair can be claimed by one player only.
+ * <p>
+ * A cell is hidden, held open by one player, or matched. A player can
+ * open a cell only if it is hidden; the cell is then held until the
+ * second card of the attempt has been opened.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class SharedPairEngine
+{
+    //The state of a hidden cell. A held cell stores the id of its player plus one.
+    private final static int HIDDEN = 0;
+    private final static int MATCHED = -1;
+
+    private final int rows, cols;
+    private final long seed;
+    //The card ids of the board, stored row by row. They never change after the deal.
+    private final short[] shortCards;
+    private final int[] intCards;
+    private final AtomicIntegerArray cellState;
+    private final AtomicInteger remainingPairs;
+    private final AtomicInteger players = new AtomicInteger();
+
+    /**
+     * Create new SharedPairEngine.
+     * @param rows The number of rows of the board.
+     * @param cols The number of columns of the board.
+     */
+    public SharedPairEngine(int rows, int cols)
+    {
+        this(rows, cols, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Create new SharedPairEngine with a reproducible deal. The same seed
+     * gives the same board as a PairEngine of the same size.
+     * @param rows The number of rows of the board.
+     * @param cols The number of columns of the board.
+     * @param seed The seed of the deal.
+     */
+    public SharedPairEngine(int rows, int cols, long seed)
+    {
+        PairEngine.checkDimensions(rows, cols);
+        this.rows = rows;
+        this.cols = cols;
+        this.seed = seed;
+        //Dealt as PairEngine deals, so that the boards are the same.
+        shortCards = Dealer.dealShorts(rows*cols, seed);
+        intCards = shortCards == null ? Dealer.dealInts(rows*cols, seed) : null;
+        cellState = new AtomicIntegerArray(rows*cols);
+        remainingPairs = new AtomicInteger(rows*cols/2);
+    }
+
+    /**
+     * Join the board as a new player.
+     * @return The player, to be used by one thread.
+     */
+    public Player join()
+    {
+        return new Player(players.getAndIncrement());
+    }
+
+    /**
+     * Conduct check to see whether the game is won or not.
+     * @return True if all pairs have been matched.
+     */
+    public boolean isWon()
+    {
+        return remainingPairs.get() == 0;
+    }
+
+    /**
+     * Return the number of pairs that are still to be matched.
+     * @return The number of remaining pairs.
+     */
+    public int getRemainingPairs()
+    {
+        return remainingPairs.get();
+    }
+
+    /**
+     * Return the card id that was dealt to a cell.
+     * @param r The row of the cell.
+     * @param c The column of the cell.
+     * @return The card id of the cell.
+     */
+    public int getFaceAt(int r, int c)
+    {
+        checkBounds(r, c);
+        return cardAt(r*cols + c);
+    }
+
+    /**
+     * Check whether a cell has already been matched.
+     * @param r The row of the cell.
+     * @param c The column of the cell.
+     * @return True if the cell has been matched.
+     */
+    public boolean isMatched(int r, int c)
+    {
+        checkBounds(r, c);
+        return cellState.get(r*cols + c) == MATCHED;
+    }
+
+    /**
+     * Return the number of rows of the board.
+     * @return The rows of the board.
+     */
+    public int getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * Return the number of columns of the board.
+     * @return The columns of the board.
+     */
+    public int getCols()
+    {
+        return cols;
+    }
+
+    /**
+     * Return the seed of the deal.
+     * @return The seed that was used to deal the board.
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    private int cardAt(int index)
+    {
+        return shortCards != null ? shortCards[index] : intCards[index];
+    }
+
+    private boolean inBounds(int r, int c)
+    {
+        return r >= 0 && r < rows && c >= 0 && c < cols;
+    }
+
+    private void checkBounds(int r, int c)
+    {
+        if(!inBounds(r, c)) {
+            throw new ArrayIndexOutOfBoundsException("rows: " + r + ", cols: " + c);
+        }
+    }
+
+    /**
+     * A player of a shared board. It keeps the cell the player has
+     * opened and the counters of the player. A player must be used
+     * by one thread only.
+     */
+    public class Player
+    {
+        private final int holder;
+        //The cell this player holds open, -1 if there is none.
+        private int openCell = -1;
+        private int openCard;
+        private int moves, matchedPairs;
+
+        private Player(int id)
+        {
+            holder = id + 1;
+        }
+
+        /**
+         * Open a cell of the board. The result has the same meaning as
+         * the result of PairEngine.checkResult:<br>
+         *
+         * MISMATCHED (-1) - If there is no match with the first value.<br>
+         * FLIPPED (0) - If this is the first selected value.<br>
+         * MATCHED (1) - If there is a match with the first value and this player has claimed the pair.<br>
+         * REJECTED (2) - If the cell is matched, held by a player, the same as the previous one or out of the board.
+         * @param r The row of the cell.
+         * @param c The column of the cell.
+         * @return The result after the check.
+         */
+        public int checkResult(int r, int c)
+        {
+            if(!inBounds(r, c)) {
+                return PairEngine.REJECTED;
+            }
+            int cell = r*cols + c;
+            if(openCell < 0) {
+                if(!cellState.compareAndSet(cell, HIDDEN, holder)) {
+                    return PairEngine.REJECTED;
+                }
+                openCell = cell;
+                openCard = cardAt(cell);
+                moves++;
+                return PairEngine.FLIPPED;
+            }
+
+            if(cell == openCell) {
+                return PairEngine.REJECTED;
+            }
+            if(cardAt(cell) == openCard) {
+                if(!cellState.compareAndSet(cell, HIDDEN, MATCHED)) {
+                    return PairEngine.REJECTED;
+                }
+                //Nobody else can change the cell this player holds.
+                cellState.set(openCell, MATCHED);
+                remainingPairs.decrementAndGet();
+                matchedPairs++;
+                moves++;
+                openCell = -1;
+                return PairEngine.MATCHED;
+            }
+            if(cellState.get(cell) != HIDDEN) {
+                return PairEngine.REJECTED;
+            }
+            cellState.set(openCell, HIDDEN);
+            moves++;
+            openCell = -1;
+            return PairEngine.MISMATCHED;
+        }
+
+        /**
+         * Close the cell this player holds open, for example when the
+         * player leaves the board.
+         */
+        public void release()
+        {
+            if(openCell >= 0) {
+                cellState.set(openCell, HIDDEN);
+                openCell = -1;
+            }
+        }
+
+        /**
+         * Return the number of moves of this player.
+         * @return The moves of the player.
+         */
+        public int getMoves()
+        {
+            return moves;
+        }
+
+        /**
+         * Return the number of pairs this player has claimed.
+         * @return The matched pairs of the player.
+         */
+        public int getMatchedPairs()
+        {
+            return matchedPairs;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package memorygame;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Semaphore;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import memorygame.metrics.Metric;
+import memorygame.metrics.Metrics;
+
+/**
+ * Plays a short sound with low latency. The sound file is decoded only
+ * once and a small pool of clips is kept open with its samples, so a new
+ * sound does not cut off the one that is still playing. The clips are
+ * opened and started on a thread of their own, so play() never blocks
+ * the caller.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class SoundPlayer
+{
+    //The number of sounds that can be heard at the same time.
+    private final static int CLIPS = 4;
+    private final static float GAIN = -25.0f;
+    //The time from a request until its clip is started.
+    private final static Metric START_TIME = Metrics.get("sound.start");
+
+    private final String path;
+    private final Clip[] clips = new Clip[CLIPS];
+    private int nextClip;
+    //Every permit is a sound which is waiting to be played.
+    private final Semaphore requests = new Semaphore(0);
+    private volatile boolean failed;
+    //The start of the measurement of the latest request.
+    private volatile long requested;
+
+    /**
+     * Create a new SoundPlayer and start loading the sound.
+     * @param path The path of the sound resource.
+     */
+    SoundPlayer(String path)
+    {
+        this.path = path;
+        Thread player = new Thread(this::run, "sound-player");
+        player.setDaemon(true);
+        player.start();
+    }
+
+    /**
+     * Play the sound once. The method returns immediately.
+     */
+    void play()
+    {
+        if(!failed) {
+            requested = START_TIME.start();
+            requests.release();
+        }
+    }
+
+    /**
+     * Check whether the sound could not be loaded.
+     * @return True if the sound cannot be played.
+     */
+    boolean hasFailed()
+    {
+        return failed;
+    }
+
+    /**
+     * Load the sound and then play it every time it is requested.
+     */
+    private void run()
+    {
+        try {
+            openClips();
+        } catch (IOException | LineUnavailableException | UnsupportedAudioFileException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            failed = true;
+            return;
+        }
+
+        while(true) {
+            requests.acquireUninterruptibly();
+            Clip clip = clips[nextClip];
+            nextClip = (nextClip + 1) % CLIPS;
+            clip.stop();
+            clip.setFramePosition(0);
+            clip.start();
+            START_TIME.stop(requested);
+        }
+    }
+
+    /**
+     * Decode the sound file into PCM samples and open all clips with them.
+     */
+    private void openClips() throws IOException, LineUnavailableException, UnsupportedAudioFileException
+    {
+        AudioFormat format;
+        byte[] samples;
+        InputStream in = getClass().getResourceAsStream(path);
+        if(in == null) {
+            throw new IOException("Sound not found: " + path);
+        }
+        try (AudioInputStream audio = AudioSystem.getAudioInputStream(new BufferedInputStream(in))) {
+            format = audio.getFormat();
+            samples = audio.readAllBytes();
+        }
+
+        for(int i = 0; i < CLIPS; i++) {
+            clips[i] = AudioSystem.getClip();
+            clips[i].open(format, samples, 0, samples.length);
+            if(clips[i].isControlSupported(FloatControl.Type.MASTER_GAIN)) {
+                FloatControl volCtrl = (FloatControl) clips[i].getControl(FloatControl.Type.MASTER_GAIN);
+                volCtrl.setValue(GAIN);
+            }
+        }
+    }
+}
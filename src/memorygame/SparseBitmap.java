@@ -0,0 +1,138 @@
+package memorygame;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of cell indices. The indices are split into chunks
+ * of 65536; a chunk holds a sorted array of its low 16 bits while it has
+ * few indices, and a plain bitmap once it has more than ARRAY_LIMIT.
+ * Chunks without any index take no memory, so the set grows with the
+ * number of indices and not with the size of the board.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+final class SparseBitmap
+{
+    private final static int CHUNK_BITS = 16;
+    private final static int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    //Above this many indices a chunk is smaller as a bitmap than as an array.
+    private final static int ARRAY_LIMIT = 4096;
+
+    //For every chunk either a sorted array of the low bits or a bitmap, or neither.
+    private final char[][] arrays;
+    private final long[][] bitmaps;
+    private final int[] sizes;
+    private int cardinality;
+
+    /**
+     * Create an empty SparseBitmap.
+     * @param size The number of indices which can be stored.
+     */
+    SparseBitmap(int size)
+    {
+        int chunks = (int)(((long)size + CHUNK_MASK) >>> CHUNK_BITS);
+        arrays = new char[chunks][];
+        bitmaps = new long[chunks][];
+        sizes = new int[chunks];
+    }
+
+    /**
+     * Check whether an index is in the set.
+     * @param index The index.
+     * @return True if the index is in the set.
+     */
+    boolean get(int index)
+    {
+        int chunk = index >>> CHUNK_BITS;
+        int low = index & CHUNK_MASK;
+        long[] bitmap = bitmaps[chunk];
+        if(bitmap != null) {
+            return (bitmap[low >>> 6] & (1L << low)) != 0;
+        }
+        char[] array = arrays[chunk];
+        return array != null && Arrays.binarySearch(array, 0, sizes[chunk], (char)low) >= 0;
+    }
+
+    /**
+     * Add an index to the set.
+     * @param index The index.
+     */
+    void set(int index)
+    {
+        int chunk = index >>> CHUNK_BITS;
+        int low = index & CHUNK_MASK;
+        long[] bitmap = bitmaps[chunk];
+        if(bitmap != null) {
+            if((bitmap[low >>> 6] & (1L << low)) == 0) {
+                bitmap[low >>> 6] |= 1L << low;
+                sizes[chunk]++;
+                cardinality++;
+            }
+            return;
+        }
+
+        char[] array = arrays[chunk];
+        int count = sizes[chunk];
+        int pos = array == null ? -1 : Arrays.binarySearch(array, 0, count, (char)low);
+        if(pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        if(count == ARRAY_LIMIT) {
+            bitmap = new long[1 << (CHUNK_BITS - 6)];
+            for(int i = 0; i < count; i++) {
+                bitmap[array[i] >>> 6] |= 1L << array[i];
+            }
+            bitmap[low >>> 6] |= 1L << low;
+            bitmaps[chunk] = bitmap;
+            arrays[chunk] = null;
+        } else {
+            if(array == null) {
+                array = new char[4];
+            } else if(count == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, count * 2));
+            }
+            System.arraycopy(array, pos, array, pos + 1, count - pos);
+            array[pos] = (char)low;
+            arrays[chunk] = array;
+        }
+        sizes[chunk]++;
+        cardinality++;
+    }
+
+    /**
+     * Return the number of indices in the set.
+     * @return The cardinality of the set.
+     */
+    int cardinality()
+    {
+        return cardinality;
+    }
+
+    /**
+     * Return all indices of the set.
+     * @return The indices in increasing order.
+     */
+    int[] toArray()
+    {
+        int[] indices = new int[cardinality];
+        int n = 0;
+        for(int chunk = 0; chunk < sizes.length; chunk++) {
+            int base = chunk << CHUNK_BITS;
+            if(bitmaps[chunk] != null) {
+                long[] bitmap = bitmaps[chunk];
+                for(int w = 0; w < bitmap.length; w++) {
+                    for(long word = bitmap[w]; word != 0; word &= word - 1) {
+                        indices[n++] = base + (w << 6) + Long.numberOfTrailingZeros(word);
+                    }
+                }
+            } else if(arrays[chunk] != null) {
+                for(int i = 0; i < sizes[chunk]; i++) {
+                    indices[n++] = base + arrays[chunk][i];
+                }
+            }
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,183 @@
+package memorygame.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import memorygame.BoardType;
+import memorygame.PairEngine;
+
+/**
+ * Plays the games of a MoveJournal again, each on a fresh PairEngine
+ * dealt with the recorded seed, or a lazy one for a game which was
+ * recorded on a lazy board. The journal is read through a memory-mapped
+ * window which moves along the file, so files of any size can be replayed.
+ * A game which was cut off at the end of the file is skipped, and the
+ * replay stops at a game whose header is damaged.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class JournalReplayer
+{
+    //The size of the part of the file that is mapped at once.
+    private final static long WINDOW = 256L * 1024 * 1024;
+    //The value read for a number cut off at the end of the file. The journal only writes numbers >= 0.
+    private final static long TRUNCATED = -1;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    //The position of the window in the file.
+    private long windowStart;
+
+    /**
+     * Prepare the replay of a journal file.
+     * @param channel The open journal file.
+     */
+    private JournalReplayer(FileChannel channel) throws IOException
+    {
+        this.channel = channel;
+        size = channel.size();
+        mapAt(0);
+    }
+
+    /**
+     * Replay all games of a journal file.
+     * @param file The journal file.
+     * @param listener Receives the replayed games.
+     * @return The number of games replayed.
+     */
+    public static long replay(Path file, ReplayListener listener) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new JournalReplayer(channel).replayAll(listener);
+        }
+    }
+
+    private long replayAll(ReplayListener listener) throws IOException
+    {
+        ensure(8);
+        if(window.remaining() < 8 || window.getInt() != MoveJournal.MAGIC || window.getInt() != MoveJournal.VERSION) {
+            throw new IOException("Not a move journal of version " + MoveJournal.VERSION);
+        }
+
+        BoardType[] types = BoardType.values();
+        long games = 0;
+        while(ensure(9 + 4 * MoveJournal.MAX_ELEMENT) >= 9) {
+            byte marker = window.get();
+            if(marker != MoveJournal.GAME && marker != MoveJournal.LAZY_GAME) {
+                throw new IOException("Corrupt move journal at byte " + (windowStart + window.position() - 1));
+            }
+            long seed = window.getLong();
+            long type = getVarint();
+            long rows = getVarint();
+            long cols = getVarint();
+            long startMillis = getVarint();
+            if(type < 0 || type > types.length || startMillis == TRUNCATED
+                || (int)rows != rows || (int)cols != cols || !PairEngine.isLegalSize((int)rows, (int)cols)) {
+                //The header of the last game was cut off or damaged.
+                break;
+            }
+
+            PairEngine eng = marker == MoveJournal.LAZY_GAME
+                ? PairEngine.lazy((int)rows, (int)cols, seed) : new PairEngine((int)rows, (int)cols, seed);
+            int width = eng.getCols();
+            listener.gameStarted(type == 0 ? null : types[(int)type - 1], startMillis, eng);
+            int cell = 0;
+            long millis = 0;
+            boolean ended = false;
+            while(ensure(2 * MoveJournal.MAX_ELEMENT) > 0) {
+                long code = getVarint();
+                if(code == 0) {
+                    ended = true;
+                    break;
+                }
+                long delta = getVarint();
+                if(code == TRUNCATED || delta == TRUNCATED) {
+                    //The last move of the game was cut off.
+                    break;
+                }
+                cell += (int)MoveJournal.unzigzag(code - 1);
+                millis += delta;
+                int r = cell / width;
+                int c = cell % width;
+                listener.moveReplayed(r, c, eng.checkResult(r, c), delta);
+            }
+            if(!ended) {
+                break;
+            }
+            listener.gameEnded(eng, millis);
+            games++;
+        }
+        return games;
+    }
+
+    /**
+     * Move the window so that a number of bytes can be read from it,
+     * unless the end of the file is closer.
+     * @param bytes The number of bytes needed.
+     * @return The number of bytes that can be read.
+     */
+    private int ensure(int bytes) throws IOException
+    {
+        if(window.remaining() < bytes && windowStart + window.limit() < size) {
+            mapAt(windowStart + window.position());
+        }
+        return window.remaining();
+    }
+
+    private void mapAt(long start) throws IOException
+    {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+    }
+
+    /**
+     * Read a variable-length integer. A number cut off at the end of
+     * the file is read as TRUNCATED, so that it is not taken for the
+     * end of a game.
+     * @return The number, or TRUNCATED.
+     */
+    private long getVarint()
+    {
+        long value = 0;
+        for(int shift = 0; window.hasRemaining(); shift += 7) {
+            byte b = window.get();
+            value |= (long)(b & 0x7F) << shift;
+            if(b >= 0) {
+                return value;
+            }
+        }
+        return TRUNCATED;
+    }
+
+    /**
+     * Replay a journal and print a summary of its games.
+     * Usage: java -cp . memorygame.journal.JournalReplayer &lt;journal file&gt;
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if(args.length != 1) {
+            System.err.println("Usage: JournalReplayer <journal file>");
+            System.exit(1);
+        }
+        long[] won = new long[1];
+        long[] moves = new long[1];
+        long start = System.nanoTime();
+        long games = replay(Paths.get(args[0]), new ReplayListener() {
+            @Override
+            public void gameEnded(PairEngine eng, long millis) {
+                moves[0] += eng.getMoves();
+                if(eng.isWon()) {
+                    won[0]++;
+                }
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Games: %d, won: %d, moves: %d, replayed in %.3f s (%.0f games/sec)%n",
+            games, won[0], moves[0], seconds, games / seconds);
+    }
+}
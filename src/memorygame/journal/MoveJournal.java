@@ -0,0 +1,195 @@
+package memorygame.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import memorygame.BoardType;
+import memorygame.PairEngine;
+
+/**
+ * An append-only journal of games. For every game it records the seed
+ * and the size of the board, followed by every cell passed to
+ * PairEngine.checkResult and the time since the previous move.
+ * A game can be played again from the journal with JournalReplayer.
+ * A lazy PairEngine deals another board for the same seed than the other
+ * engines, so the journal records which of the two deals a game was played on.
+ * <p>
+ * The moves are stored as variable-length integers: the difference to
+ * the previous cell in zigzag encoding plus one, then the milliseconds
+ * since the previous move. A zero in place of a cell ends the game.
+ * The moves are written to a reusable buffer, so recording a move does
+ * not allocate.
+ * <pre>
+ * file: int MAGIC, int VERSION, games...
+ * game: byte GAME (LAZY_GAME for a board of PairEngine.lazy), long seed,
+ *       varint boardType (ordinal + 1, 0 if none),
+ *       varint rows, varint cols, varint start time in epoch milliseconds,
+ *       moves..., varint 0
+ * move: varint zigzag(cell - previous cell) + 1, varint milliseconds
+ * </pre>
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class MoveJournal implements Closeable
+{
+    final static int MAGIC = 0x4D474A31; //"MGJ1"
+    final static int VERSION = 1;
+    final static byte GAME = 1, LAZY_GAME = 2;
+    //The longest element: a long or a varint of a long.
+    final static int MAX_ELEMENT = 10;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private boolean inGame;
+    private int cols, previousCell;
+    private long previousNanos;
+
+    /**
+     * Open a journal file for appending. The file is created if it
+     * does not exist.
+     * @param file The journal file.
+     */
+    public MoveJournal(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if(channel.size() == 0) {
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+        }
+    }
+
+    /**
+     * Start recording a new game. A game which has not ended is ended first.
+     * @param type The BoardType of the game, or null if the board has another size.
+     * @param eng The engine of the game, before its first move.
+     */
+    public void startGame(BoardType type, PairEngine eng) throws IOException
+    {
+        startGame(eng.isLazy() ? LAZY_GAME : GAME, type, eng.getRows(), eng.getCols(), eng.getSeed());
+    }
+
+    /**
+     * Start recording a new game on a board dealt by new PairEngine(rows, cols, seed).
+     * A game which has not ended is ended first.
+     * @param type The BoardType of the game, or null if the board has another size.
+     * @param rows The number of rows of the board.
+     * @param cols The number of columns of the board.
+     * @param seed The seed of the deal.
+     */
+    public void startGame(BoardType type, int rows, int cols, long seed) throws IOException
+    {
+        startGame(GAME, type, rows, cols, seed);
+    }
+
+    /**
+     * Write the header of a new game.
+     * @param marker GAME or LAZY_GAME, for the deal of the board.
+     */
+    private void startGame(byte marker, BoardType type, int rows, int cols, long seed) throws IOException
+    {
+        if(inGame) {
+            endGame();
+        }
+        ensure(9 + 4 * MAX_ELEMENT);
+        buffer.put(marker);
+        buffer.putLong(seed);
+        putVarint(type == null ? 0 : type.ordinal() + 1);
+        putVarint(rows);
+        putVarint(cols);
+        putVarint(System.currentTimeMillis());
+        this.cols = cols;
+        previousCell = 0;
+        previousNanos = System.nanoTime();
+        inGame = true;
+    }
+
+    /**
+     * Record a move of the current game.
+     * @param r The row passed to checkResult.
+     * @param c The column passed to checkResult.
+     */
+    public void recordMove(int r, int c) throws IOException
+    {
+        if(!inGame) {
+            throw new IllegalStateException("No game has been started");
+        }
+        long now = System.nanoTime();
+        int cell = r * cols + c;
+        ensure(2 * MAX_ELEMENT);
+        putVarint(zigzag((long)cell - previousCell) + 1);
+        putVarint((now - previousNanos) / 1_000_000);
+        previousCell = cell;
+        previousNanos = now;
+    }
+
+    /**
+     * End the current game and write the journal to the file.
+     */
+    public void endGame() throws IOException
+    {
+        if(inGame) {
+            ensure(1);
+            putVarint(0);
+            inGame = false;
+        }
+        flush();
+    }
+
+    /**
+     * Write the buffered moves to the file.
+     */
+    public void flush() throws IOException
+    {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * End the current game and close the file.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try {
+            endGame();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Make sure the buffer has space for a number of bytes.
+     */
+    private void ensure(int bytes) throws IOException
+    {
+        if(buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void putVarint(long value)
+    {
+        while((value & ~0x7FL) != 0) {
+            buffer.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+
+    static long zigzag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,38 @@
+package memorygame.journal;
+
+import memorygame.BoardType;
+import memorygame.PairEngine;
+
+/**
+ * Receives the games of a journal while they are replayed.
+ * All methods do nothing by default.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public interface ReplayListener
+{
+    /**
+     * A game has been read and a fresh engine has been dealt for it.
+     * @param type The BoardType of the game, or null if the board has another size.
+     * @param startMillis The time when the game started, in epoch milliseconds.
+     * @param eng The engine on which the game is replayed.
+     */
+    default void gameStarted(BoardType type, long startMillis, PairEngine eng) {}
+
+    /**
+     * A move has been replayed.
+     * @param r The row of the move.
+     * @param c The column of the move.
+     * @param result The result returned from checkResult.
+     * @param millis The time since the previous move.
+     */
+    default void moveReplayed(int r, int c, int result, long millis) {}
+
+    /**
+     * All moves of a game have been replayed.
+     * @param eng The engine on which the game was replayed.
+     * @param millis The time the game took.
+     */
+    default void gameEnded(PairEngine eng, long millis) {}
+}
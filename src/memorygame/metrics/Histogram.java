@@ -0,0 +1,149 @@
+package memorygame.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative values, such as latencies in nanoseconds.
+ * Every power of two is split into 16 buckets, so a value is known with
+ * an error of at most 1/16, and recording is a few shifts and an increment.
+ * A histogram is meant to be used by one thread; histograms of different
+ * threads are combined with add.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class Histogram
+{
+    private final static int SUB_BITS = 4;
+    private final static int SUB_BUCKETS = 1 << SUB_BITS;
+    private final static int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count, sum, max;
+
+    /**
+     * Record a value.
+     * @param value The value, negative values are recorded as 0.
+     */
+    public void record(long value)
+    {
+        if(value < 0) {
+            value = 0;
+        }
+        counts[bucket(value)]++;
+        count++;
+        sum += value;
+        if(value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Add all values of another histogram to this one.
+     * @param other The histogram to be added.
+     */
+    public void add(Histogram other)
+    {
+        for(int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Remove all values.
+     */
+    public void reset()
+    {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * Return the number of recorded values.
+     * @return The count of values.
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Return the largest recorded value.
+     * @return The maximum, or 0 if there are no values.
+     */
+    public long getMax()
+    {
+        return max;
+    }
+
+    /**
+     * Return the average of the recorded values.
+     * @return The mean, or 0 if there are no values.
+     */
+    public double getMean()
+    {
+        return count == 0 ? 0 : (double)sum / count;
+    }
+
+    /**
+     * Return the value below which a fraction of the values lie.
+     * @param fraction The fraction of the values, between 0 and 1.
+     * @return The upper bound of the bucket of the percentile, never more than the maximum.
+     */
+    public long getPercentile(double fraction)
+    {
+        long target = Math.max(1, (long)Math.ceil(fraction * count));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if(seen >= target) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Return the number of buckets of every histogram.
+     * @return The number of buckets.
+     */
+    public static int getBucketCount()
+    {
+        return BUCKETS;
+    }
+
+    /**
+     * Find the bucket of a value.
+     * @param value A non-negative value.
+     * @return The index of its bucket.
+     */
+    public static int bucket(long value)
+    {
+        if(value < SUB_BUCKETS) {
+            return (int)value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (msb - SUB_BITS)) - SUB_BUCKETS;
+        return SUB_BUCKETS + (msb - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Return the largest value of a bucket.
+     * @param bucket The index of the bucket.
+     * @return The largest value that falls into it.
+     */
+    public static long upperBound(int bucket)
+    {
+        if(bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long sub = SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,31 @@
+package memorygame.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for one measurement of a Metric. The event
+ * is written only while a recording with it enabled is running, for
+ * example when the game is started with -XX:StartFlightRecording.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+@Name("memorygame.Latency")
+@Label("Memory Game Latency")
+@Category("Memory Game")
+@Description("The time of one flip, icon, sound, board build or event queue delay")
+@StackTrace(false)
+class LatencyEvent extends jdk.jfr.Event
+{
+    @Label("Metric")
+    String metric;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
@@ -0,0 +1,113 @@
+package memorygame.metrics;
+
+import jdk.jfr.EventType;
+
+/**
+ * A named latency metric of the registry. The time between start and
+ * stop is recorded in a histogram when the metrics are enabled, and
+ * written as a LatencyEvent when a flight recording is running.
+ * When neither is on, start and stop only check two flags.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public final class Metric
+{
+    //The value returned by start when nothing is measured.
+    private final static long NOT_STARTED = Long.MIN_VALUE;
+    //The type of the latency events, which knows if a recording takes them.
+    private final static EventType LATENCY_EVENT = EventType.getEventType(LatencyEvent.class);
+
+    private final String name;
+    private final Histogram histogram = new Histogram();
+
+    /**
+     * Create a new Metric. Metrics are created by the registry.
+     * @param name The name of the metric.
+     */
+    Metric(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Start a measurement.
+     * @return The start time to be passed to stop.
+     */
+    public long start()
+    {
+        return Metrics.ENABLED || isRecorded() ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /**
+     * End a measurement and record the time since it started.
+     * @param start The value returned by start.
+     */
+    public void stop(long start)
+    {
+        if(start != NOT_STARTED) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record a time that has been measured by the caller.
+     * @param nanos The time in nanoseconds.
+     */
+    public void record(long nanos)
+    {
+        if(Metrics.ENABLED) {
+            synchronized(histogram) {
+                histogram.record(nanos);
+            }
+        }
+        if(isRecorded()) {
+            LatencyEvent event = new LatencyEvent();
+            event.metric = name;
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Return the name of the metric.
+     * @return The name.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Return a copy of the values recorded so far.
+     * @return A new histogram with the values.
+     */
+    public Histogram getHistogram()
+    {
+        Histogram copy = new Histogram();
+        synchronized(histogram) {
+            copy.add(histogram);
+        }
+        return copy;
+    }
+
+    /**
+     * Remove all recorded values.
+     */
+    public void reset()
+    {
+        synchronized(histogram) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Check whether a flight recording of the latency events is running,
+     * without creating an event.
+     * @return True if the latency events are recorded.
+     */
+    private static boolean isRecorded()
+    {
+        return LATENCY_EVENT.isEnabled();
+    }
+}
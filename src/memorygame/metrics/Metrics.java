@@ -0,0 +1,99 @@
+package memorygame.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The registry of the latency metrics of the game. The metrics are
+ * enabled with the system property memorygame.metrics; its value is
+ * the file to which they are exported when the game ends, for example
+ * -Dmemorygame.metrics=metrics.csv. The latency events for the flight
+ * recorder are written whenever a recording is running, with or without
+ * the property.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public final class Metrics
+{
+    //The system property which enables the metrics.
+    public final static String PROPERTY = "memorygame.metrics";
+    public final static boolean ENABLED = System.getProperty(PROPERTY) != null;
+
+    private final static Map<String, Metric> metrics = new LinkedHashMap<>();
+
+    private Metrics() {}
+
+    /**
+     * Return the metric with a name, creating it the first time.
+     * @param name The name of the metric, for example "gui.flip".
+     * @return The metric.
+     */
+    public static synchronized Metric get(String name)
+    {
+        return metrics.computeIfAbsent(name, Metric::new);
+    }
+
+    /**
+     * Return all metrics, in the order in which they were created.
+     * @return A list of the metrics.
+     */
+    public static synchronized List<Metric> getAll()
+    {
+        return new ArrayList<>(metrics.values());
+    }
+
+    /**
+     * Return the file to which the metrics are exported.
+     * @return The file given with the system property, or null if there is none.
+     */
+    public static Path getExportFile()
+    {
+        String file = System.getProperty(PROPERTY);
+        return file == null || file.isEmpty() ? null : Path.of(file);
+    }
+
+    /**
+     * Print a table of all metrics, with the times in microseconds.
+     * @param out The stream to print to.
+     */
+    public static void dump(PrintStream out)
+    {
+        out.printf("%-20s %10s %10s %10s %10s %10s %10s%n", "metric", "count", "mean", "p50", "p99", "p99.9", "max");
+        for(Metric metric : getAll()) {
+            Histogram h = metric.getHistogram();
+            out.printf("%-20s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", metric.getName(), h.getCount(),
+                h.getMean() / 1e3, h.getPercentile(0.5) / 1e3, h.getPercentile(0.99) / 1e3,
+                h.getPercentile(0.999) / 1e3, h.getMax() / 1e3);
+        }
+    }
+
+    /**
+     * Write all metrics to a CSV file, with the times in nanoseconds,
+     * so they can be compared and plotted offline.
+     * @param file The file to be written.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void export(Path file) throws IOException
+    {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("metric,count,mean,p50,p90,p99,p99.9,max");
+            out.newLine();
+            for(Metric metric : getAll()) {
+                Histogram h = metric.getHistogram();
+                out.write(metric.getName() + "," + h.getCount() + "," + Math.round(h.getMean())
+                    + "," + h.getPercentile(0.5) + "," + h.getPercentile(0.9) + "," + h.getPercentile(0.99)
+                    + "," + h.getPercentile(0.999) + "," + h.getMax());
+                out.newLine();
+            }
+        }
+    }
+}
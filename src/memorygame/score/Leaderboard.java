@@ -0,0 +1,412 @@
+package memorygame.score;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+import memorygame.BoardType;
+
+/**
+ * The local leaderboard. Every won game is appended to a log file as a
+ * fixed-size record with its own checksum, and added to an in-memory
+ * ScoreIndex of its BoardType, which answers the best results and the
+ * percentile rank of a result without reading the log.
+ * <p>
+ * When the log has grown by COMPACT_AFTER results, the indexes are
+ * written to an index file and the log is started again, so opening
+ * the leaderboard reads the index file and only the results logged
+ * after it. The index keeps the best results of every BoardType in full
+ * and only the number of attempts of the others, so the old log is not
+ * deleted: it is kept as the archive of its epoch, with the epoch added
+ * to its name, and holds every result in full. Every log has an epoch
+ * number and the index file names the epoch and the length of the log
+ * it covers, so no result is counted twice or lost if the game stops
+ * during a compaction. A damaged record at the end of the log, from a
+ * write that was cut off, is dropped. A log whose header cannot be read,
+ * damaged or of an unknown version, is never overwritten: it is moved
+ * to a name ending with ".bad" and a new log is started.
+ * <pre>
+ * log:    int MAGIC, int VERSION, long epoch, records...
+ * record: byte boardType (ordinal + 1), long seed, int attempts, int milliseconds,
+ *         long date in epoch milliseconds, int CRC32 of the previous fields
+ * index:  int INDEX_MAGIC, int VERSION, int payload length, long CRC32 of the payload,
+ *         payload: long epoch, long covered log length, int types, ScoreIndex of every type
+ * </pre>
+ * Files of version 1 stored the time in seconds. They are still read,
+ * and are compacted into files of the current version when they are opened.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class Leaderboard implements Closeable
+{
+    private final static int MAGIC = 0x4D474C31; //"MGL1"
+    private final static int INDEX_MAGIC = 0x4D475831; //"MGX1"
+    private final static int VERSION = 2;
+    private final static int LOG_HEADER_SIZE = 4 + 4 + 8;
+    private final static int INDEX_HEADER_SIZE = 4 + 4 + 4 + 8;
+    final static int RECORD_SIZE = 1 + 8 + 4 + 4 + 8 + 4;
+    //The number of results which are logged before the log is compacted.
+    private final static int COMPACT_AFTER = 100_000;
+    //The number of records read from the log at once.
+    private final static int READ_RECORDS = 4096;
+
+    private final Path logFile, indexFile;
+    private final ScoreIndex[] indexes;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private FileChannel log;
+    private long epoch;
+    //The number of results in the log which are not in the index file.
+    private int logged;
+    //True if a file of an older version has been read.
+    private boolean upgrade;
+
+    /**
+     * Open the leaderboard, creating its files if they do not exist.
+     * The index file is kept next to the log, with ".index" added to its name.
+     * @param logFile The log file.
+     */
+    public Leaderboard(Path logFile) throws IOException
+    {
+        this.logFile = logFile;
+        indexFile = logFile.resolveSibling(logFile.getFileName() + ".index");
+        BoardType[] types = BoardType.values();
+        indexes = new ScoreIndex[types.length];
+        for(BoardType type : types) {
+            indexes[type.ordinal()] = new ScoreIndex(type);
+        }
+        if(logFile.getParent() != null) {
+            Files.createDirectories(logFile.getParent());
+        }
+
+        long[] covered = readIndex();
+        log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        int version = header.remaining() < LOG_HEADER_SIZE || header.getInt() != MAGIC ? -1 : header.getInt();
+        if(version != 1 && version != VERSION) {
+            if(log.size() > 0) {
+                //A log which cannot be read is kept for the user, and a new one is started.
+                log.close();
+                Path unreadable = moveAside(logFile, ".bad");
+                System.err.println("Leaderboard log cannot be read, moved to " + unreadable);
+                log = FileChannel.open(logFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            //A new log follows the epoch of the index, so none of it is skipped.
+            epoch = covered == null ? 0 : covered[0] + 1;
+            writeHeader(log, epoch);
+            if(upgrade) {
+                compact();
+            }
+            return;
+        }
+        epoch = header.getLong();
+        long start = covered != null && covered[0] == epoch ? covered[1] : LOG_HEADER_SIZE;
+        readLog(Math.max(LOG_HEADER_SIZE, Math.min(start, log.size())), version);
+        if(logged >= COMPACT_AFTER || upgrade || version != VERSION) {
+            compact();
+        }
+    }
+
+    /**
+     * Add the result of a won game.
+     * @param score The result.
+     */
+    public synchronized void record(Score score) throws IOException
+    {
+        record.clear();
+        putRecord(record, score);
+        record.flip();
+        long position = log.size();
+        while(record.hasRemaining()) {
+            position += log.write(record, position);
+        }
+        indexes[score.getType().ordinal()].add(score);
+        logged++;
+        if(logged >= COMPACT_AFTER) {
+            compact();
+        }
+    }
+
+    /**
+     * Return the best results of a BoardType.
+     * @param type The BoardType.
+     * @param k The most results to be returned, up to 100.
+     * @return The results, from the best to the worst.
+     */
+    public synchronized List<Score> getTop(BoardType type, int k)
+    {
+        return indexes[type.ordinal()].getTop(k);
+    }
+
+    /**
+     * Return the percentage of the results of a BoardType which
+     * took more attempts. Results with the same attempts count as half.
+     * @param type The BoardType.
+     * @param attempts The number of attempts.
+     * @return The percentile rank between 0 and 100, or 100 if there are no results.
+     */
+    public synchronized double getPercentileRank(BoardType type, int attempts)
+    {
+        return indexes[type.ordinal()].getPercentileRank(attempts);
+    }
+
+    /**
+     * Return the number of results of a BoardType.
+     * @param type The BoardType.
+     * @return The count of results.
+     */
+    public synchronized long getCount(BoardType type)
+    {
+        return indexes[type.ordinal()].getTotal();
+    }
+
+    /**
+     * Write the indexes to the index file and start a new, empty log.
+     * The old log is kept as the archive of its epoch.
+     */
+    public synchronized void compact() throws IOException
+    {
+        int size = 8 + 8 + 4;
+        for(ScoreIndex index : indexes) {
+            size += index.size();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(INDEX_HEADER_SIZE + size);
+        buffer.position(INDEX_HEADER_SIZE);
+        buffer.putLong(epoch);
+        buffer.putLong(log.size());
+        buffer.putInt(indexes.length);
+        for(ScoreIndex index : indexes) {
+            index.writeTo(buffer);
+        }
+        int length = buffer.position() - INDEX_HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), INDEX_HEADER_SIZE, length);
+        buffer.putInt(0, INDEX_MAGIC).putInt(4, VERSION).putInt(8, length).putLong(12, crc.getValue());
+        buffer.flip();
+        replace(indexFile, buffer);
+
+        //The index now covers the whole log, so a log of the next epoch replaces it
+        //and the old log is kept as the archive of its epoch.
+        long logSize = log.size();
+        log.close();
+        if(logSize > LOG_HEADER_SIZE) {
+            moveAside(logFile, "." + epoch);
+        }
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(epoch + 1);
+        header.flip();
+        replace(logFile, header);
+        epoch++;
+        logged = 0;
+        log = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Close the log file.
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        log.close();
+    }
+
+    /**
+     * Read the index file into the indexes.
+     * @return The epoch and the length of the log covered by the index,
+     * or null if there is no valid index file.
+     */
+    private long[] readIndex() throws IOException
+    {
+        if(!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        int version = buffer.remaining() < INDEX_HEADER_SIZE || buffer.getInt() != INDEX_MAGIC ? -1 : buffer.getInt();
+        if((version != 1 && version != VERSION) || buffer.getInt() != buffer.remaining() - 8) {
+            System.err.println("Leaderboard index ignored: " + indexFile);
+            return null;
+        }
+        long checksum = buffer.getLong();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), INDEX_HEADER_SIZE, buffer.remaining());
+        if(crc.getValue() != checksum) {
+            System.err.println("Leaderboard index damaged: " + indexFile);
+            return null;
+        }
+        try {
+            long[] covered = {buffer.getLong(), buffer.getLong()};
+            int types = buffer.getInt();
+            if(types > indexes.length) {
+                throw new IllegalArgumentException("Unknown board types: " + types);
+            }
+            for(int i = 0; i < types; i++) {
+                indexes[i].readFrom(buffer, version);
+            }
+            upgrade = version != VERSION;
+            return covered;
+        } catch (RuntimeException e) {
+            System.err.println("Leaderboard index damaged: " + e.getMessage());
+            for(BoardType type : BoardType.values()) {
+                indexes[type.ordinal()] = new ScoreIndex(type);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Add the results in the log from a position to the indexes.
+     * The log is cut at the first record which is incomplete or damaged.
+     * @param start The position of the first record to be read.
+     * @param version The version of the log.
+     */
+    private void readLog(long start, int version) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_RECORDS * RECORD_SIZE);
+        long position = start;
+        long size = log.size();
+        while(position < size) {
+            buffer.clear();
+            if(size - position < buffer.capacity()) {
+                buffer.limit((int)(size - position));
+            }
+            readFully(buffer, position);
+            buffer.flip();
+            while(buffer.remaining() >= RECORD_SIZE) {
+                Score score = getRecord(buffer, version);
+                if(score == null) {
+                    break;
+                }
+                indexes[score.getType().ordinal()].add(score);
+                logged++;
+                position += RECORD_SIZE;
+            }
+            if(buffer.hasRemaining()) {
+                break;
+            }
+        }
+        if(position < size) {
+            System.err.println("Leaderboard log cut at " + position + " of " + size + " bytes");
+            log.truncate(position);
+        }
+    }
+
+    /**
+     * Read from the log until the buffer is full or the log ends.
+     * @param buffer The buffer to be filled.
+     * @param position The position in the log to read from.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException
+    {
+        while(buffer.hasRemaining()) {
+            int n = log.read(buffer, position);
+            if(n < 0) {
+                return;
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * Write a result as a record.
+     * @param buffer The buffer to write to.
+     * @param score The result.
+     */
+    static void putRecord(ByteBuffer buffer, Score score)
+    {
+        int start = buffer.position();
+        buffer.put((byte)(score.getType().ordinal() + 1));
+        buffer.putLong(score.getSeed());
+        buffer.putInt(score.getAttempts());
+        buffer.putInt(score.getMillis());
+        buffer.putLong(score.getDate());
+        buffer.putInt(checksum(buffer, start));
+    }
+
+    /**
+     * Read a record.
+     * @param buffer The buffer to read from, with at least RECORD_SIZE bytes remaining.
+     * @param version The version of the file, in version 1 the time is in seconds.
+     * @return The result, or null if the record is damaged.
+     */
+    static Score getRecord(ByteBuffer buffer, int version)
+    {
+        int start = buffer.position();
+        BoardType[] types = BoardType.values();
+        int type = buffer.get();
+        long seed = buffer.getLong();
+        int attempts = buffer.getInt();
+        int millis = buffer.getInt();
+        long date = buffer.getLong();
+        if(buffer.getInt() != checksum(buffer, start) || type < 1 || type > types.length || millis < 0 || attempts < 0) {
+            buffer.position(start);
+            return null;
+        }
+        if(version == 1) {
+            millis = (int)Math.min(Integer.MAX_VALUE, millis * 1000L);
+        }
+        return new Score(types[type - 1], seed, attempts, millis, date);
+    }
+
+    /**
+     * Compute the checksum of the fields of a record.
+     */
+    private static int checksum(ByteBuffer buffer, int start)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(start).limit(start + RECORD_SIZE - 4));
+        return (int)crc.getValue();
+    }
+
+    /**
+     * Write the header of a new log.
+     */
+    private static void writeHeader(FileChannel channel, long epoch) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(epoch);
+        header.flip();
+        long position = 0;
+        while(header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    /**
+     * Move a file to the first free name made of its name and a suffix,
+     * followed by a number if the name is taken.
+     * @param file The file to be moved.
+     * @param suffix The suffix of the new name.
+     * @return The new name of the file.
+     */
+    private static Path moveAside(Path file, String suffix) throws IOException
+    {
+        Path moved = file.resolveSibling(file.getFileName() + suffix);
+        for(int i = 1; Files.exists(moved); i++) {
+            moved = file.resolveSibling(file.getFileName() + suffix + "." + i);
+        }
+        return Files.move(file, moved, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replace a file atomically with new contents.
+     */
+    private static void replace(Path file, ByteBuffer contents) throws IOException
+    {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(contents.hasRemaining()) {
+                channel.write(contents);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,105 @@
+package memorygame.score;
+
+import memorygame.BoardType;
+
+/**
+ * The result of one won game. Results are ordered from the best to
+ * the worst: fewer attempts first, then less time, then the earlier game.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public final class Score implements Comparable<Score>
+{
+    private final BoardType type;
+    private final long seed;
+    private final int attempts;
+    private final int millis;
+    private final long date;
+
+    /**
+     * Create a new Score.
+     * @param type The BoardType of the game.
+     * @param seed The seed of the deal.
+     * @param attempts The number of attempts the game took.
+     * @param millis The time the game took, in milliseconds.
+     * @param date The time the game was won, in epoch milliseconds.
+     */
+    public Score(BoardType type, long seed, int attempts, int millis, long date)
+    {
+        if(type == null) {
+            throw new IllegalArgumentException("A score needs a BoardType");
+        }
+        if(attempts < 0 || millis < 0) {
+            throw new IllegalArgumentException("Negative score: " + attempts + " attempts, " + millis + " ms");
+        }
+        this.type = type;
+        this.seed = seed;
+        this.attempts = attempts;
+        this.millis = millis;
+        this.date = date;
+    }
+
+    /**
+     * Return the BoardType of the game.
+     * @return The BoardType.
+     */
+    public BoardType getType()
+    {
+        return type;
+    }
+
+    /**
+     * Return the seed of the deal.
+     * @return The seed.
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Return the number of attempts the game took.
+     * @return The attempts.
+     */
+    public int getAttempts()
+    {
+        return attempts;
+    }
+
+    /**
+     * Return the time the game took.
+     * @return The time in milliseconds.
+     */
+    public int getMillis()
+    {
+        return millis;
+    }
+
+    /**
+     * Return the time the game was won.
+     * @return The date in epoch milliseconds.
+     */
+    public long getDate()
+    {
+        return date;
+    }
+
+    @Override
+    public int compareTo(Score other)
+    {
+        if(attempts != other.attempts) {
+            return Integer.compare(attempts, other.attempts);
+        }
+        if(millis != other.millis) {
+            return Integer.compare(millis, other.millis);
+        }
+        return Long.compare(date, other.date);
+    }
+
+    @Override
+    public String toString()
+    {
+        return type + " attempts: " + attempts + " time: " + millis + "ms seed: " + seed + " date: " + date;
+    }
+}
@@ -0,0 +1,214 @@
+package memorygame.score;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import memorygame.BoardType;
+
+/**
+ * The in-memory index of the results of one BoardType. It keeps the
+ * best TOP_SIZE results in a sorted array and the number of results
+ * with every count of attempts in a Fenwick tree, so the best results
+ * and the rank of a result are found without looking at every result.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+class ScoreIndex
+{
+    //The number of best results which are kept.
+    final static int TOP_SIZE = 100;
+
+    private final BoardType type;
+    //The best results, from the best to the worst.
+    private final Score[] top = new Score[TOP_SIZE];
+    private int topCount;
+    //The number of results by attempts, and a Fenwick tree of the same counts.
+    private long[] counts = new long[64];
+    private long[] tree = new long[64 + 1];
+    private long total;
+
+    /**
+     * Create an empty index.
+     * @param type The BoardType of the results.
+     */
+    ScoreIndex(BoardType type)
+    {
+        this.type = type;
+    }
+
+    /**
+     * Add a result.
+     * @param score The result, of the BoardType of the index.
+     */
+    void add(Score score)
+    {
+        addCount(score.getAttempts(), 1);
+        if(topCount < TOP_SIZE || score.compareTo(top[topCount - 1]) < 0) {
+            int pos = topCount < TOP_SIZE ? topCount++ : TOP_SIZE - 1;
+            while(pos > 0 && score.compareTo(top[pos - 1]) < 0) {
+                top[pos] = top[pos - 1];
+                pos--;
+            }
+            top[pos] = score;
+        }
+    }
+
+    /**
+     * Return the best results.
+     * @param k The most results to be returned, up to TOP_SIZE.
+     * @return The results, from the best to the worst.
+     */
+    List<Score> getTop(int k)
+    {
+        return new ArrayList<>(Arrays.asList(top).subList(0, Math.min(k, topCount)));
+    }
+
+    /**
+     * Return the percentage of the results which are worse than a number
+     * of attempts. Results with the same attempts count as half worse.
+     * @param attempts The number of attempts.
+     * @return The percentile rank between 0 and 100, or 100 if there are no results.
+     */
+    double getPercentileRank(int attempts)
+    {
+        if(total == 0) {
+            return 100;
+        }
+        long better = attempts > 0 ? prefix(Math.min(attempts, counts.length) - 1) : 0;
+        long same = attempts < counts.length ? counts[attempts] : 0;
+        long worse = total - better - same;
+        return (worse + same / 2.0) * 100 / total;
+    }
+
+    /**
+     * Return the number of results.
+     * @return The count of results.
+     */
+    long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Count results with a number of attempts, growing the tree when needed.
+     */
+    private void addCount(int attempts, long count)
+    {
+        if(attempts >= counts.length) {
+            int length = counts.length;
+            while(length <= attempts) {
+                length *= 2;
+            }
+            counts = Arrays.copyOf(counts, length);
+            rebuildTree();
+        }
+        counts[attempts] += count;
+        total += count;
+        for(int i = attempts + 1; i < tree.length; i += i & -i) {
+            tree[i] += count;
+        }
+    }
+
+    /**
+     * Build the Fenwick tree from the counts in linear time.
+     */
+    private void rebuildTree()
+    {
+        tree = new long[counts.length + 1];
+        for(int i = 1; i < tree.length; i++) {
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if(parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Return the number of results with at most a number of attempts.
+     */
+    private long prefix(int attempts)
+    {
+        long sum = 0;
+        for(int i = attempts + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Return the number of bytes written by writeTo.
+     * @return The size of the index.
+     */
+    int size()
+    {
+        int nonZero = 0;
+        for(long count : counts) {
+            if(count != 0) {
+                nonZero++;
+            }
+        }
+        return 4 + nonZero * 12 + 4 + topCount * Leaderboard.RECORD_SIZE;
+    }
+
+    /**
+     * Write the counts and the best results.
+     * <pre>
+     * int n, then n times: int attempts, long count
+     * int k, then k score records
+     * </pre>
+     * @param buffer The buffer to write to.
+     */
+    void writeTo(ByteBuffer buffer)
+    {
+        int countPos = buffer.position();
+        buffer.putInt(0);
+        int nonZero = 0;
+        for(int attempts = 0; attempts < counts.length; attempts++) {
+            if(counts[attempts] != 0) {
+                buffer.putInt(attempts).putLong(counts[attempts]);
+                nonZero++;
+            }
+        }
+        buffer.putInt(countPos, nonZero);
+        buffer.putInt(topCount);
+        for(int i = 0; i < topCount; i++) {
+            Leaderboard.putRecord(buffer, top[i]);
+        }
+    }
+
+    /**
+     * Read the counts and the best results written by writeTo
+     * and add them to this index.
+     * @param buffer The buffer to read from.
+     * @param version The version of the index file.
+     */
+    void readFrom(ByteBuffer buffer, int version)
+    {
+        int nonZero = buffer.getInt();
+        for(int i = 0; i < nonZero; i++) {
+            int attempts = buffer.getInt();
+            long count = buffer.getLong();
+            if(attempts < 0 || count < 0) {
+                throw new IllegalArgumentException("Bad count in the index");
+            }
+            addCount(attempts, count);
+        }
+        int k = buffer.getInt();
+        if(k < 0 || k > TOP_SIZE) {
+            throw new IllegalArgumentException("Bad number of best results: " + k);
+        }
+        for(int i = 0; i < k; i++) {
+            Score score = Leaderboard.getRecord(buffer, version);
+            if(score == null || score.getType() != type) {
+                throw new IllegalArgumentException("Bad result in the index");
+            }
+            //The counts are already complete, so only the best results are placed.
+            if(topCount < TOP_SIZE) {
+                top[topCount++] = score;
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package memorygame.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hosts many independent games of the pair game as a service.
+ * Clients connect over TCP on the loopback address and send one
+ * command per line; the server answers every command with one line,
+ * starting with OK or ERR.
+ * <pre>
+ * NEW rows cols [seed]  -&gt; OK id
+ * FLIP id row col       -&gt; OK result card
+ * FLIPS id cell...      -&gt; OK result card [result card ...]
+ * STATS id              -&gt; OK moves remainingPairs matchedPairs misses won
+ * CLOSE id              -&gt; OK
+ * QUIT                  closes the connection
+ * </pre>
+ * A line longer than MAX_LINE bytes is answered with ERR and closes the connection.
+ * A FLIP or FLIPS answers the card on every cell it opened, and the card -1
+ * for a cell which was rejected.
+ * Every connection is served by its own thread, a virtual thread when the
+ * Java runtime has them. Many sessions can share one connection.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class GameServer implements Closeable
+{
+    //The longest command line, in bytes. A connection which sends a longer line is closed.
+    final static int MAX_LINE = 64 * 1024;
+    //The result of readLine at the end of the stream and for a line longer than MAX_LINE.
+    private final static int END = -1, TOO_LONG = -2;
+
+    private final ServerSocket serverSocket;
+    private final SessionRegistry sessions;
+    private final ExecutorService connections;
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Start a new GameServer on the loopback address.
+     * @param port The port to listen on, 0 for any free port.
+     * @param maxSessions The largest number of sessions at the same time.
+     * @param maxCells The largest number of cells of a board.
+     * @param idleMillis The time after which an unused session is evicted.
+     */
+    public GameServer(int port, int maxSessions, int maxCells, long idleMillis) throws IOException
+    {
+        sessions = new SessionRegistry(maxSessions, maxCells, idleMillis);
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        connections = newConnectionExecutor();
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "session-evictor"));
+        long period = Math.max(1, idleMillis / 4);
+        evictor.scheduleAtFixedRate(sessions::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        daemon(this::acceptConnections, "game-server-acceptor").start();
+    }
+
+    /**
+     * Return the port the server listens on.
+     * @return The port.
+     */
+    public int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Return the number of sessions currently hosted.
+     * @return The number of sessions.
+     */
+    public int getSessionCount()
+    {
+        return sessions.size();
+    }
+
+    /**
+     * Stop accepting connections and stop the server.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        serverSocket.close();
+        evictor.shutdownNow();
+        connections.shutdownNow();
+    }
+
+    private void acceptConnections()
+    {
+        while(!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if(!serverSocket.isClosed()) {
+                    System.err.println("Connection not accepted: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answer the commands of one connection until it is closed.
+     * @param socket The connection.
+     */
+    private void serve(Socket socket)
+    {
+        try (Socket s = socket;
+             InputStream in = new BufferedInputStream(s.getInputStream());
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+            s.setTcpNoDelay(true);
+            byte[] line = new byte[MAX_LINE];
+            int length;
+            while((length = readLine(in, line)) >= 0) {
+                String command = new String(line, 0, length, StandardCharsets.US_ASCII);
+                if(command.equals("QUIT")) {
+                    break;
+                }
+                out.write(execute(command));
+                out.write('\n');
+                if(in.available() == 0) {
+                    out.flush();
+                }
+            }
+            if(length == TOO_LONG) {
+                out.write("ERR line longer than " + MAX_LINE + " bytes\n");
+            }
+        } catch (SocketException e) {
+            //The client went away.
+        } catch (IOException e) {
+            System.err.println("Connection failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read one line into a buffer, without its line end. A line longer
+     * than the buffer is not read to its end, as the connection is closed.
+     * @param in The stream of the connection.
+     * @param line The buffer, as long as the longest line.
+     * @return The length of the line, END at the end of the stream or TOO_LONG.
+     */
+    private static int readLine(InputStream in, byte[] line) throws IOException
+    {
+        int length = 0;
+        int b;
+        while((b = in.read()) != '\n') {
+            if(b < 0) {
+                return length == 0 ? END : length;
+            }
+            if(length == line.length) {
+                return TOO_LONG;
+            }
+            line[length++] = (byte)b;
+        }
+        return length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+    }
+
+    /**
+     * Execute one command.
+     * @param line The command line.
+     * @return The answer, without the line end.
+     */
+    String execute(String line)
+    {
+        String[] args = line.trim().split(" +");
+        try {
+            switch(args[0]) {
+                case "NEW": return newSession(args);
+                case "FLIP": return flip(args);
+                case "FLIPS": return flips(args);
+                case "STATS": return "OK " + session(args, 2).stats();
+                case "CLOSE": return sessions.remove(Long.parseLong(args[1])) ? "OK" : "ERR no such session";
+                default: return "ERR unknown command";
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return "ERR malformed command";
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return "ERR " + e.getMessage();
+        }
+    }
+
+    private String newSession(String[] args)
+    {
+        int rows = Integer.parseInt(args[1]);
+        int cols = Integer.parseInt(args[2]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : new SplittableRandom().nextLong();
+        return "OK " + sessions.create(rows, cols, seed).getId();
+    }
+
+    private String flip(String[] args)
+    {
+        long packed = session(args, 4).flip(Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        return "OK " + (int)(packed >> 32) + " " + (int)packed;
+    }
+
+    /**
+     * Open many cells of one session in one command. The cells are
+     * indices counted row by row, and a rejected cell has the card -1.
+     */
+    private String flips(String[] args)
+    {
+        if(args.length < 3) {
+            throw new IllegalArgumentException("malformed command");
+        }
+        Session session = session(args[1]);
+        int count = args.length - 2;
+        int[] cells = new int[count];
+        for(int i = 0; i < count; i++) {
+            cells[i] = Integer.parseInt(args[i + 2]);
+        }
+        int[] results = new int[count];
+        int[] cards = new int[count];
+        session.flip(cells, count, results, cards);
+        StringBuilder answer = new StringBuilder(3 + 8*count).append("OK");
+        for(int i = 0; i < count; i++) {
+            answer.append(' ').append(results[i]).append(' ').append(cards[i]);
+        }
+        return answer.toString();
+    }
+
+    /**
+     * Find the session named in a command.
+     * @param args The words of the command, the id is the second one.
+     * @param length The number of words the command must have.
+     * @return The session.
+     */
+    private Session session(String[] args, int length)
+    {
+        if(args.length != length) {
+            throw new IllegalArgumentException("malformed command");
+        }
+        return session(args[1]);
+    }
+
+    /**
+     * Find a session by its id.
+     * @param id The id of the session, as it was sent.
+     * @return The session.
+     */
+    private Session session(String id)
+    {
+        Session session = sessions.get(Long.parseLong(id));
+        if(session == null) {
+            throw new IllegalStateException("no such session");
+        }
+        return session;
+    }
+
+    /**
+     * Create the executor for the connections: one virtual thread per
+     * connection when the runtime has virtual threads, otherwise one
+     * platform thread per connection.
+     */
+    private static ExecutorService newConnectionExecutor()
+    {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> daemon(r, "game-server-connection"));
+        }
+    }
+
+    private static Thread daemon(Runnable task, String name)
+    {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Run the server until the process is stopped.
+     * Usage: java -cp . memorygame.server.GameServer [port] [maxSessions] [maxCells] [idleSeconds]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7654;
+        int maxSessions = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int maxCells = args.length > 2 ? Integer.parseInt(args[2]) : 1 << 20;
+        long idleSeconds = args.length > 3 ? Long.parseLong(args[3]) : 300;
+        GameServer server = new GameServer(port, maxSessions, maxCells, idleSeconds * 1000);
+        System.out.println("Game server listening on " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort());
+        Thread.currentThread().join();
+    }
+}
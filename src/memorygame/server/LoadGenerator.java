@@ -0,0 +1,146 @@
+package memorygame.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import memorygame.metrics.Histogram;
+
+/**
+ * Puts load on a GameServer and reports the latency of the FLIP commands.
+ * It creates the sessions over a number of connections, each served by
+ * its own thread, and then flips random cells of all sessions in turns.
+ * With "local" in place of the port it starts a server in the same
+ * process on a free port of the loopback address.
+ * <p>
+ * Usage: java -cp . memorygame.server.LoadGenerator &lt;port|local&gt; [sessions] [connections] [flips per session]
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class LoadGenerator
+{
+    private final static int ROWS = 5, COLS = 6;
+
+    private LoadGenerator() {}
+
+    public static void main(String[] args) throws Exception
+    {
+        if(args.length < 1) {
+            System.err.println("Usage: LoadGenerator <port|local> [sessions] [connections] [flips per session]");
+            System.exit(1);
+        }
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int flips = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+        GameServer local = null;
+        int port;
+        if(args[0].equals("local")) {
+            local = new GameServer(0, sessions, ROWS * COLS, 600_000);
+            port = local.getPort();
+        } else {
+            port = Integer.parseInt(args[0]);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+        try {
+            List<Future<Histogram>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for(int i = 0; i < connections; i++) {
+                int count = sessions / connections + (i < sessions % connections ? 1 : 0);
+                results.add(pool.submit(new Client(port, count, flips, i)));
+            }
+            Histogram latency = new Histogram();
+            for(Future<Histogram> result : results) {
+                latency.add(result.get());
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("Sessions: %d, connections: %d, flips: %d in %.2f s (%.0f flips/sec)%n",
+                sessions, connections, latency.getCount(), seconds, latency.getCount() / seconds);
+            System.out.printf("Flip latency (us): mean %.1f, p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                latency.getMean() / 1e3, latency.getPercentile(0.5) / 1e3, latency.getPercentile(0.9) / 1e3,
+                latency.getPercentile(0.99) / 1e3, latency.getPercentile(0.999) / 1e3, latency.getMax() / 1e3);
+        } finally {
+            pool.shutdownNow();
+            if(local != null) {
+                local.close();
+            }
+        }
+    }
+
+    /**
+     * One connection with its sessions.
+     */
+    private static class Client implements Callable<Histogram>
+    {
+        private final int port, sessions, flips;
+        private final SplittableRandom random;
+
+        Client(int port, int sessions, int flips, long seed)
+        {
+            this.port = port;
+            this.sessions = sessions;
+            this.flips = flips;
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        public Histogram call() throws IOException
+        {
+            Histogram latency = new Histogram();
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+                socket.setTcpNoDelay(true);
+                long[] ids = new long[sessions];
+                for(int i = 0; i < sessions; i++) {
+                    ids[i] = Long.parseLong(request(in, out, "NEW " + ROWS + " " + COLS + " " + random.nextLong()));
+                }
+                for(int round = 0; round < flips; round++) {
+                    for(long id : ids) {
+                        String command = "FLIP " + id + " " + random.nextInt(ROWS) + " " + random.nextInt(COLS);
+                        long start = System.nanoTime();
+                        request(in, out, command);
+                        latency.record(System.nanoTime() - start);
+                    }
+                }
+                for(long id : ids) {
+                    request(in, out, "CLOSE " + id);
+                }
+                out.write("QUIT\n");
+                out.flush();
+            }
+            return latency;
+        }
+
+        /**
+         * Send a command and wait for its answer.
+         * @return The answer without the leading OK.
+         */
+        private String request(BufferedReader in, Writer out, String command) throws IOException
+        {
+            out.write(command);
+            out.write('\n');
+            out.flush();
+            String answer = in.readLine();
+            if(answer == null || !answer.startsWith("OK")) {
+                throw new IOException("Command " + command + " failed: " + answer);
+            }
+            return answer.length() > 3 ? answer.substring(3) : "";
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package memorygame.server;
+
+import memorygame.PairEngine;
+
+/**
+ * One game hosted by the GameServer. A session can be used from several
+ * connections, so every access to its engine is synchronized.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+class Session
+{
+    private final long id;
+    private final PairEngine eng;
+    //The time of the last request, used to evict idle sessions.
+    private volatile long lastAccess;
+
+    /**
+     * Create a new Session.
+     * @param id The id of the session.
+     * @param eng The engine of the game.
+     */
+    Session(long id, PairEngine eng)
+    {
+        this.id = id;
+        this.eng = eng;
+        touch();
+    }
+
+    /**
+     * Return the id of the session.
+     * @return The id.
+     */
+    long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Return the time of the last request, from System.nanoTime.
+     * @return The time of the last request.
+     */
+    long getLastAccess()
+    {
+        return lastAccess;
+    }
+
+    /**
+     * Mark the session as used now.
+     */
+    void touch()
+    {
+        lastAccess = System.nanoTime();
+    }
+
+    /**
+     * Open a cell of the game.
+     * @param r The row of the cell.
+     * @param c The column of the cell.
+     * @return The result of checkResult and the card on the cell, -1 if
+     * the cell was rejected, packed as result in the high and card in the low 32 bits.
+     */
+    synchronized long flip(int r, int c)
+    {
+        touch();
+        int result = eng.checkResult(r, c);
+        int card = result == PairEngine.REJECTED ? -1 : eng.getFaceAt(r, c);
+        return (long)result << 32 | (card & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Open a batch of cells of the game with one lock.
+     * @param cells The indices of the cells, counted row by row.
+     * @param count The number of cells to be opened.
+     * @param results The array which receives the result of every cell.
+     * @param cards The array which receives the card on every cell, -1 if the cell was rejected.
+     */
+    synchronized void flip(int[] cells, int count, int[] results, int[] cards)
+    {
+        touch();
+        eng.checkCells(cells, count, results);
+        int cols = eng.getCols();
+        for(int i = 0; i < count; i++) {
+            cards[i] = results[i] == PairEngine.REJECTED ? -1 : eng.getFaceAt(cells[i] / cols, cells[i] % cols);
+        }
+    }
+
+    /**
+     * Describe the state of the game.
+     * @return The moves, remaining pairs, matched pairs, misses and 1 if the game is won, separated by spaces.
+     */
+    synchronized String stats()
+    {
+        touch();
+        return eng.getMoves() + " " + eng.getRemainingPairs() + " " + eng.getMatchedPairs() + " "
+            + eng.getMisses() + " " + (eng.isWon() ? 1 : 0);
+    }
+}
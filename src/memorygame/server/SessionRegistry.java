@@ -0,0 +1,123 @@
+package memorygame.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import memorygame.PairEngine;
+
+/**
+ * The sessions hosted by the GameServer, keyed by their id. The number
+ * of sessions and the size of every board are limited, so the memory of
+ * the server is bounded, and sessions which are not used are evicted.
+ * A place is taken from the limit before a session is created, so that
+ * concurrent creations cannot exceed it.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+class SessionRegistry
+{
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    //The number of sessions, counting the places taken by create before the session is added.
+    private final AtomicInteger count = new AtomicInteger();
+    private final int maxSessions;
+    private final int maxCells;
+    private final long idleNanos;
+
+    /**
+     * Create a new SessionRegistry.
+     * @param maxSessions The largest number of sessions at the same time.
+     * @param maxCells The largest number of cells of a board.
+     * @param idleMillis The time after which an unused session is evicted.
+     */
+    SessionRegistry(int maxSessions, int maxCells, long idleMillis)
+    {
+        this.maxSessions = maxSessions;
+        this.maxCells = maxCells;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+    }
+
+    /**
+     * Create a session with a new game.
+     * @param rows The number of rows of the board.
+     * @param cols The number of columns of the board.
+     * @param seed The seed of the deal.
+     * @return The new session.
+     * @throws IllegalArgumentException If the board is too large or has an illegal size.
+     * @throws IllegalStateException If there are too many sessions.
+     */
+    Session create(int rows, int cols, long seed)
+    {
+        if((long)rows * cols > maxCells) {
+            throw new IllegalArgumentException("Board larger than " + maxCells + " cells");
+        }
+        int taken;
+        do {
+            taken = count.get();
+            if(taken >= maxSessions) {
+                throw new IllegalStateException("Too many sessions");
+            }
+        } while(!count.compareAndSet(taken, taken + 1));
+        try {
+            Session session = new Session(nextId.getAndIncrement(), new PairEngine(rows, cols, seed));
+            sessions.put(session.getId(), session);
+            return session;
+        } catch (RuntimeException e) {
+            count.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Find a session.
+     * @param id The id of the session.
+     * @return The session, or null if there is none with this id.
+     */
+    Session get(long id)
+    {
+        return sessions.get(id);
+    }
+
+    /**
+     * Remove a session.
+     * @param id The id of the session.
+     * @return True if the session existed.
+     */
+    boolean remove(long id)
+    {
+        if(sessions.remove(id) == null) {
+            return false;
+        }
+        count.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Return the number of sessions.
+     * @return The number of sessions.
+     */
+    int size()
+    {
+        return sessions.size();
+    }
+
+    /**
+     * Remove the sessions which have not been used for the idle time.
+     * @return The number of sessions removed.
+     */
+    int evictIdle()
+    {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for(Session session : sessions.values()) {
+            //Removed only if no CLOSE has removed the session in the meantime.
+            if(now - session.getLastAccess() > idleNanos && sessions.remove(session.getId(), session)) {
+                count.decrementAndGet();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+}
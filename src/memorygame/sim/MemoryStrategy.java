@@ -0,0 +1,265 @@
+package memorygame.sim;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import memorygame.PairEngine;
+
+/**
+ * A strategy which remembers the cards it has seen. With an unlimited
+ * memory it is a perfect player: it opens a pair as soon as it knows
+ * both of its cells and never opens a known card as a guess. With a
+ * limited memory it forgets the card it saw longest ago whenever it
+ * would remember more cards than it can, like a human player.
+ * <p>
+ * The remembered cells are kept in a bitset, the cells of every card id
+ * in two tables indexed by the card id and the cells never seen in a
+ * swap-remove array, so every move takes constant time and no objects
+ * are created after the first game of a board size.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class MemoryStrategy implements Strategy
+{
+    private final int capacity;
+
+    //The cells that are remembered and not matched, one bit per cell.
+    private long[] remembered;
+    //The card id of every remembered cell.
+    private int[] cardOf;
+    //The remembered cells of every card id, -1 if there is none.
+    private int[] firstCell, secondCell;
+    //The card ids of which both cells are remembered, and a bit per card id which is on this stack.
+    private int[] knownPairs;
+    private long[] queued;
+    private int knownCount;
+    //The cells which are neither remembered nor matched, the first 'unknownCount' of them are valid.
+    private int[] unknown;
+    //The position of every cell in the 'unknown' array.
+    private int[] unknownPos;
+    private int unknownCount;
+    //The remembered cells from the oldest to the newest, with cells that were matched since.
+    private int[] order;
+    private int orderHead, orderSize, rememberedCount;
+    //The cell that is currently open, -1 if there is none.
+    private int openCell;
+    //The second cell of a known pair which is being opened, -1 if there is none.
+    private int pairCell;
+    private SplittableRandom random;
+
+    /**
+     * Create a strategy with a perfect memory.
+     */
+    public MemoryStrategy()
+    {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create a strategy which remembers a limited number of cards.
+     * @param capacity The most cards which are remembered at the same time, at least 1.
+     */
+    public MemoryStrategy(int capacity)
+    {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("The memory must hold at least one card: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void newGame(int rows, int cols, long seed)
+    {
+        int size = rows*cols;
+        int pairs = size / 2;
+        if(unknown == null || unknown.length != size) {
+            remembered = new long[(size + 63) >>> 6];
+            cardOf = new int[size];
+            firstCell = new int[pairs];
+            secondCell = new int[pairs];
+            knownPairs = new int[pairs];
+            queued = new long[(pairs + 63) >>> 6];
+            unknown = new int[size];
+            unknownPos = new int[size];
+            order = new int[size];
+        } else {
+            Arrays.fill(remembered, 0);
+            Arrays.fill(queued, 0);
+        }
+        Arrays.fill(firstCell, -1);
+        Arrays.fill(secondCell, -1);
+        for(int i = 0; i < size; i++) {
+            unknown[i] = i;
+            unknownPos[i] = i;
+        }
+        unknownCount = size;
+        knownCount = 0;
+        orderHead = 0;
+        orderSize = 0;
+        rememberedCount = 0;
+        openCell = -1;
+        pairCell = -1;
+        random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int nextCell()
+    {
+        if(openCell < 0) {
+            //Open a pair that is known, or guess.
+            while(knownCount > 0) {
+                int card = knownPairs[--knownCount];
+                queued[card >>> 6] &= ~(1L << card);
+                if(firstCell[card] >= 0 && secondCell[card] >= 0) {
+                    pairCell = secondCell[card];
+                    return firstCell[card];
+                }
+            }
+            return unknown[random.nextInt(unknownCount)];
+        }
+        if(pairCell >= 0) {
+            return pairCell;
+        }
+        //The card just opened may complete a remembered pair.
+        int card = cardOf[openCell];
+        int other = firstCell[card] == openCell ? secondCell[card] : firstCell[card];
+        if(other >= 0) {
+            return other;
+        }
+        return unknown[random.nextInt(unknownCount)];
+    }
+
+    @Override
+    public void observe(int cell, int card, int result)
+    {
+        switch(result) {
+            case PairEngine.FLIPPED: openCell = cell;
+            remember(cell, card);
+            break;
+            case PairEngine.MATCHED: matched(openCell);
+            matched(cell);
+            openCell = -1;
+            pairCell = -1;
+            break;
+            case PairEngine.MISMATCHED: remember(cell, card);
+            openCell = -1;
+            pairCell = -1;
+            break;
+        }
+    }
+
+    /**
+     * Remember the card on a cell, forgetting the oldest card if the memory is full.
+     * @param cell The cell that was opened.
+     * @param card The card on the cell.
+     */
+    private void remember(int cell, int card)
+    {
+        if(isRemembered(cell)) {
+            return;
+        }
+        while(rememberedCount >= capacity) {
+            forgetOldest();
+        }
+        remembered[cell >>> 6] |= 1L << cell;
+        cardOf[cell] = card;
+        removeUnknown(cell);
+        order[(orderHead + orderSize) % order.length] = cell;
+        orderSize++;
+        rememberedCount++;
+
+        if(firstCell[card] < 0) {
+            firstCell[card] = cell;
+        } else {
+            secondCell[card] = cell;
+            if((queued[card >>> 6] & (1L << card)) == 0) {
+                queued[card >>> 6] |= 1L << card;
+                knownPairs[knownCount++] = card;
+            }
+        }
+    }
+
+    /**
+     * Forget the card seen longest ago which is still remembered.
+     * Cells which have been matched since are skipped.
+     */
+    private void forgetOldest()
+    {
+        int cell;
+        do {
+            cell = order[orderHead];
+            orderHead = (orderHead + 1) % order.length;
+            orderSize--;
+        } while(!isRemembered(cell));
+        forget(cell);
+        addUnknown(cell);
+    }
+
+    /**
+     * Stop remembering a cell.
+     * @param cell The remembered cell.
+     */
+    private void forget(int cell)
+    {
+        int card = cardOf[cell];
+        remembered[cell >>> 6] &= ~(1L << cell);
+        rememberedCount--;
+        if(firstCell[card] == cell) {
+            firstCell[card] = secondCell[card];
+        }
+        secondCell[card] = -1;
+    }
+
+    /**
+     * Forget a cell that has been matched. A matched cell is never
+     * opened again, so it does not go back to the unknown cells.
+     * @param cell The matched cell.
+     */
+    private void matched(int cell)
+    {
+        if(isRemembered(cell)) {
+            forget(cell);
+        } else {
+            removeUnknown(cell);
+        }
+    }
+
+    /**
+     * Check whether a cell is remembered.
+     * @param cell The cell.
+     * @return True if the card on the cell is remembered.
+     */
+    private boolean isRemembered(int cell)
+    {
+        return (remembered[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Remove a cell from the unknown cells.
+     * @param cell The cell to be removed.
+     */
+    private void removeUnknown(int cell)
+    {
+        int pos = unknownPos[cell];
+        int last = unknown[--unknownCount];
+        unknown[pos] = last;
+        unknownPos[last] = pos;
+        unknown[unknownCount] = cell;
+        unknownPos[cell] = unknownCount;
+    }
+
+    /**
+     * Put a forgotten cell back among the unknown cells.
+     * @param cell The cell to be added.
+     */
+    private void addUnknown(int cell)
+    {
+        int pos = unknownPos[cell];
+        int first = unknown[unknownCount];
+        unknown[pos] = first;
+        unknownPos[first] = pos;
+        unknown[unknownCount] = cell;
+        unknownPos[cell] = unknownCount;
+        unknownCount++;
+    }
+}
@@ -0,0 +1,92 @@
+package memorygame.sim;
+
+import java.util.SplittableRandom;
+import memorygame.PairEngine;
+
+/**
+ * A strategy without any memory. It opens a random cell that is
+ * not matched yet and is not the cell that is already open.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class RandomStrategy implements Strategy
+{
+    //The cells that are not matched yet, the first 'remaining' of them are valid.
+    private int[] cells;
+    //The position of every cell in the 'cells' array.
+    private int[] positions;
+    private int remaining;
+    //The cell that is currently open, -1 if there is none.
+    private int openCell;
+    private SplittableRandom random;
+
+    @Override
+    public void newGame(int rows, int cols, long seed)
+    {
+        int size = rows*cols;
+        if(cells == null || cells.length != size) {
+            cells = new int[size];
+            positions = new int[size];
+        }
+        for(int i = 0; i < size; i++) {
+            cells[i] = i;
+            positions[i] = i;
+        }
+        remaining = size;
+        openCell = -1;
+        random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int nextCell()
+    {
+        if(openCell < 0) {
+            return cells[random.nextInt(remaining)];
+        }
+        //Choose among the remaining cells except the open one.
+        int pos = random.nextInt(remaining - 1);
+        if(pos >= positions[openCell]) {
+            pos++;
+        }
+        return cells[pos];
+    }
+
+    @Override
+    public void observe(int cell, int card, int result)
+    {
+        switch(result) {
+            case PairEngine.FLIPPED: openCell = cell;
+            break;
+            case PairEngine.MATCHED: removePair(cell);
+            break;
+            case PairEngine.MISMATCHED: openCell = -1;
+            break;
+        }
+    }
+
+    /**
+     * Remove the open cell and the cell that matched it.
+     * @param cell The cell that matched the open cell.
+     */
+    private void removePair(int cell)
+    {
+        remove(openCell);
+        remove(cell);
+        openCell = -1;
+    }
+
+    /**
+     * Remove a matched cell from the remaining cells.
+     * @param cell The cell to be removed.
+     */
+    private void remove(int cell)
+    {
+        int pos = positions[cell];
+        int last = cells[--remaining];
+        cells[pos] = last;
+        positions[last] = pos;
+        cells[remaining] = cell;
+        positions[cell] = remaining;
+    }
+}
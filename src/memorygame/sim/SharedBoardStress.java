@@ -0,0 +1,164 @@
+package memorygame.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import memorygame.PairEngine;
+import memorygame.SharedPairEngine;
+
+/**
+ * A stress test for SharedPairEngine. For every number of threads it
+ * lets that many players play one large board at the same time until it
+ * is won, and then checks that every pair was claimed by exactly one
+ * player and that the claims add up to all pairs of the board.
+ * It prints the flips per second, so the scaling with the number of
+ * players can be seen. SharedBoardStressTest runs the same check on a
+ * smaller board with every build.
+ * <p>
+ * Usage: java -cp . memorygame.sim.SharedBoardStress [max threads] [rows] [cols]
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class SharedBoardStress
+{
+    private SharedBoardStress() {}
+
+    public static void main(String[] args) throws Exception
+    {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        boolean failed = false;
+        for(int threads = 1; threads <= maxThreads; threads *= 2) {
+            failed |= !run(threads, rows, cols);
+        }
+        if(failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Play one board with a number of players.
+     * @param threads The number of players, each on its own thread.
+     * @param rows The number of rows of the board.
+     * @param cols The number of columns of the board.
+     * @return True if no pair was claimed twice or lost.
+     */
+    static boolean run(int threads, int rows, int cols) throws Exception
+    {
+        SharedPairEngine board = new SharedPairEngine(rows, cols, threads);
+        int cells = rows * cols;
+        int[] partner = partners(board);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<int[]>> claims = new ArrayList<>();
+        long start = System.nanoTime();
+        for(int t = 0; t < threads; t++) {
+            SharedPairEngine.Player player = board.join();
+            long seed = t;
+            claims.add(pool.submit(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    return play(board, player, partner, seed);
+                }
+            }));
+        }
+
+        //The player who claimed every cell, -1 if none.
+        int[] owner = new int[cells];
+        Arrays.fill(owner, -1);
+        long flips = 0;
+        int doubleClaims = 0, claimedPairs = 0;
+        for(int t = 0; t < threads; t++) {
+            int[] claimed = claims.get(t).get();
+            flips += claimed[0];
+            for(int i = 1; i < claimed.length; i++) {
+                int cell = claimed[i];
+                if(owner[cell] >= 0) {
+                    doubleClaims++;
+                }
+                owner[cell] = t;
+            }
+            claimedPairs += (claimed.length - 1) / 2;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        int unmatched = 0;
+        for(int cell = 0; cell < cells; cell++) {
+            if(owner[cell] < 0 || !board.isMatched(cell / cols, cell % cols)) {
+                unmatched++;
+            }
+        }
+        boolean ok = doubleClaims == 0 && unmatched == 0 && claimedPairs == cells / 2 && board.isWon();
+        System.out.printf("threads: %2d  flips: %10d  flips/sec: %,14.0f  pairs: %d/%d  double claims: %d  unmatched cells: %d  %s%n",
+            threads, flips, flips / seconds, claimedPairs, cells / 2, doubleClaims, unmatched, ok ? "OK" : "FAILED");
+        return ok;
+    }
+
+    /**
+     * Play until the board is won. Every second attempt the player opens
+     * the partner of its first card, so that pairs are claimed quickly and
+     * players compete for the same pairs.
+     * @return The number of flips, followed by the cells of every claimed pair.
+     */
+    private static int[] play(SharedPairEngine board, SharedPairEngine.Player player, int[] partner, long seed)
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+        int cols = board.getCols();
+        int cells = partner.length;
+        int[] claimed = new int[1 + 64];
+        int size = 1;
+        int flips = 0;
+        while(!board.isWon()) {
+            int first = random.nextInt(cells);
+            flips++;
+            if(player.checkResult(first / cols, first % cols) != PairEngine.FLIPPED) {
+                continue;
+            }
+            int second = random.nextBoolean() ? partner[first] : random.nextInt(cells);
+            flips++;
+            int result = player.checkResult(second / cols, second % cols);
+            if(result == PairEngine.MATCHED) {
+                if(size + 2 > claimed.length) {
+                    claimed = Arrays.copyOf(claimed, claimed.length * 2);
+                }
+                claimed[size++] = first;
+                claimed[size++] = partner[first];
+            }
+            //A rejected second card leaves the first one held, give it back.
+            player.release();
+        }
+        claimed[0] = flips;
+        return Arrays.copyOf(claimed, size);
+    }
+
+    /**
+     * Find the other cell of the pair of every cell.
+     */
+    private static int[] partners(SharedPairEngine board)
+    {
+        int cols = board.getCols();
+        int cells = board.getRows() * cols;
+        int[] seen = new int[cells / 2];
+        Arrays.fill(seen, -1);
+        int[] partner = new int[cells];
+        for(int cell = 0; cell < cells; cell++) {
+            int card = board.getFaceAt(cell / cols, cell % cols);
+            if(seen[card] < 0) {
+                seen[card] = cell;
+            } else {
+                partner[cell] = seen[card];
+                partner[seen[card]] = cell;
+            }
+        }
+        return partner;
+    }
+}
@@ -0,0 +1,139 @@
+package memorygame.sim;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import memorygame.BoardType;
+import memorygame.PairEngine;
+
+/**
+ * Plays many games of the pair game without a user interface.
+ * The games are split into batches on a fork-join pool. Every batch
+ * has its own PairEngine and Strategy instances and returns its own
+ * result, so the threads share no mutable state.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class Simulation
+{
+    //The number of games played by one task without splitting further.
+    private final static int BATCH_SIZE = 256;
+    //A game which takes more flips than this times the cells is treated as stuck.
+    private final static int MAX_FLIPS_PER_CELL = 10_000;
+
+    private final ForkJoinPool pool;
+    private final Supplier<? extends Strategy> strategies;
+    private final long seed;
+
+    /**
+     * Create a new Simulation.
+     * @param pool The pool on which the games are played.
+     * @param strategies Creates a new strategy for every batch of games.
+     * @param seed The seed from which the seed of every game is derived.
+     */
+    public Simulation(ForkJoinPool pool, Supplier<? extends Strategy> strategies, long seed)
+    {
+        this.pool = pool;
+        this.strategies = strategies;
+        this.seed = seed;
+    }
+
+    /**
+     * Play a number of games on a BoardType.
+     * @param type The BoardType of the games.
+     * @param games The number of games to be played.
+     * @return The result of the games.
+     */
+    public SimulationResult run(BoardType type, long games)
+    {
+        long start = System.nanoTime();
+        SimulationResult result = pool.invoke(new GameBatch(type, 0, games));
+        return result.withElapsedNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * Play one game from the start to the end.
+     * @param eng The engine of the game.
+     * @param strategy The strategy which plays the game.
+     * @param gameSeed The seed for the random choices of the strategy.
+     * @return The number of attempts the game took.
+     */
+    static int play(PairEngine eng, Strategy strategy, long gameSeed)
+    {
+        int rows = eng.getRows();
+        int cols = eng.getCols();
+        strategy.newGame(rows, cols, gameSeed);
+        long maxFlips = (long)MAX_FLIPS_PER_CELL * rows * cols;
+        for(long flips = 0; !eng.isWon(); flips++) {
+            if(flips == maxFlips) {
+                throw new IllegalStateException("The strategy did not finish the game after " + flips + " flips");
+            }
+            int cell = strategy.nextCell();
+            int r = cell / cols;
+            int c = cell % cols;
+            int card = eng.getCardAt(r, c);
+            strategy.observe(cell, card, eng.checkResult(r, c));
+        }
+        return eng.getMoves() / 2;
+    }
+
+    /**
+     * Derive the seed of a single game from the seed of the simulation.
+     * @param seed The seed of the simulation.
+     * @param game The number of the game.
+     * @return The seed of the game.
+     */
+    static long gameSeed(long seed, long game)
+    {
+        long z = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays the games with numbers from 'from' to 'to', splitting them
+     * into two tasks while there are more than BATCH_SIZE games.
+     */
+    private class GameBatch extends RecursiveTask<SimulationResult>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final BoardType type;
+        private final long from, to;
+
+        GameBatch(BoardType type, long from, long to)
+        {
+            this.type = type;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationResult compute()
+        {
+            if(to - from > BATCH_SIZE) {
+                long mid = (from + to) >>> 1;
+                GameBatch left = new GameBatch(type, from, mid);
+                left.fork();
+                SimulationResult right = new GameBatch(type, mid, to).compute();
+                return left.join().merge(right);
+            }
+
+            Strategy strategy = strategies.get();
+            long[] histogram = new long[type.getRows() * type.getCols()];
+            for(long game = from; game < to; game++) {
+                long gameSeed = gameSeed(seed, game);
+                PairEngine eng = new PairEngine(type.getRows(), type.getCols(), gameSeed);
+                int attempts = play(eng, strategy, ~gameSeed);
+                if(attempts >= histogram.length) {
+                    histogram = Arrays.copyOf(histogram, Math.max(attempts + 1, histogram.length * 2));
+                }
+                histogram[attempts]++;
+            }
+            return new SimulationResult(type, to - from, 0, histogram);
+        }
+    }
+}
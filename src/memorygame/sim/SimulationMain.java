@@ -0,0 +1,65 @@
+package memorygame.sim;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import memorygame.BoardType;
+
+/**
+ * Runs the simulation from the command line and prints a report
+ * for every BoardType which the strategy can finish in reasonable time.
+ * It does not use any AWT or Swing classes.
+ * <p>
+ * Usage: java -cp . memorygame.sim.SimulationMain [games] [threads] [seed] [strategy]
+ * <p>
+ * The strategy is "random" (the default), "perfect" for a perfect memory,
+ * or "memory:N" for a memory of N cards.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class SimulationMain
+{
+    //Random players need about pairs * pairs attempts, so larger boards are left out.
+    private final static int MAX_RANDOM_CELLS = 30;
+    //Players with memory need a few attempts per pair.
+    private final static int MAX_MEMORY_CELLS = 1000;
+
+    private SimulationMain() {}
+
+    public static void main(String[] args)
+    {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        String name = args.length > 3 ? args[3] : "random";
+
+        Supplier<Strategy> strategies;
+        int maxCells = MAX_MEMORY_CELLS;
+        if(name.equals("random")) {
+            strategies = RandomStrategy::new;
+            maxCells = MAX_RANDOM_CELLS;
+        } else if(name.equals("perfect")) {
+            strategies = MemoryStrategy::new;
+        } else if(name.startsWith("memory:")) {
+            int capacity = Integer.parseInt(name.substring("memory:".length()));
+            strategies = () -> new MemoryStrategy(capacity);
+        } else {
+            System.err.println("Unknown strategy: " + name + ", use random, perfect or memory:N");
+            System.exit(1);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Simulation simulation = new Simulation(pool, strategies, seed);
+            System.out.println("Simulating " + games + " games per level with the " + name + " strategy on " + threads + " threads, seed " + seed);
+            for(BoardType type : BoardType.values()) {
+                if(type.getRows() * type.getCols() <= maxCells) {
+                    System.out.println(simulation.run(type, games));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package memorygame.sim;
+
+import java.util.Arrays;
+import memorygame.BoardType;
+
+/**
+ * The outcome of a batch of simulated games on one BoardType.
+ * It keeps the distribution of the attempts per game, where an attempt
+ * is a pair of opened cards, the same way GameGUI counts them.
+ * Results are immutable, so results of different threads are combined
+ * with merge instead of being updated in place.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public final class SimulationResult
+{
+    private final BoardType type;
+    private final long games;
+    private final long elapsedNanos;
+    //The number of games for every count of attempts.
+    private final long[] histogram;
+
+    /**
+     * Create a new SimulationResult.
+     * @param type The BoardType of the games.
+     * @param games The number of games played.
+     * @param elapsedNanos The wall-clock time of the simulation.
+     * @param histogram The number of games for every count of attempts.
+     */
+    SimulationResult(BoardType type, long games, long elapsedNanos, long[] histogram)
+    {
+        this.type = type;
+        this.games = games;
+        this.elapsedNanos = elapsedNanos;
+        this.histogram = histogram;
+    }
+
+    /**
+     * Combine two results of the same BoardType.
+     * @param other The result to be added to this one.
+     * @return A new result with the games of both.
+     */
+    SimulationResult merge(SimulationResult other)
+    {
+        long[] sum = Arrays.copyOf(histogram, Math.max(histogram.length, other.histogram.length));
+        for(int i = 0; i < other.histogram.length; i++) {
+            sum[i] += other.histogram[i];
+        }
+        return new SimulationResult(type, games + other.games, Math.max(elapsedNanos, other.elapsedNanos), sum);
+    }
+
+    /**
+     * Return a copy of this result with a different elapsed time.
+     * @param nanos The wall-clock time of the whole simulation.
+     * @return The result with the new time.
+     */
+    SimulationResult withElapsedNanos(long nanos)
+    {
+        return new SimulationResult(type, games, nanos, histogram);
+    }
+
+    /**
+     * Return the BoardType of the games.
+     * @return The BoardType.
+     */
+    public BoardType getBoardType()
+    {
+        return type;
+    }
+
+    /**
+     * Return the number of games played.
+     * @return The number of games.
+     */
+    public long getGames()
+    {
+        return games;
+    }
+
+    /**
+     * Return the wall-clock time of the simulation.
+     * @return The time in nanoseconds.
+     */
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    /**
+     * Return the number of games finished per second of wall-clock time.
+     * @return The games per second.
+     */
+    public double getGamesPerSecond()
+    {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Return the number of cards opened per second of wall-clock time.
+     * Every attempt opens two cards.
+     * @return The moves per second.
+     */
+    public double getMovesPerSecond()
+    {
+        return getGamesPerSecond() * getMeanAttempts() * 2;
+    }
+
+    /**
+     * Return the number of games that were won with this count of attempts.
+     * @param attempts The count of attempts.
+     * @return The number of games.
+     */
+    public long getGamesWithAttempts(int attempts)
+    {
+        return attempts < histogram.length ? histogram[attempts] : 0;
+    }
+
+    /**
+     * Return the average number of attempts per game.
+     * @return The mean of the attempts.
+     */
+    public double getMeanAttempts()
+    {
+        double sum = 0;
+        for(int i = 0; i < histogram.length; i++) {
+            sum += (double)i * histogram[i];
+        }
+        return games == 0 ? 0 : sum / games;
+    }
+
+    /**
+     * Return the smallest number of attempts, such that at least
+     * the given fraction of the games needed no more attempts.
+     * @param fraction The fraction of the games, between 0 and 1.
+     * @return The attempts at this percentile.
+     */
+    public int getAttemptsPercentile(double fraction)
+    {
+        long target = (long)Math.ceil(fraction * games);
+        long seen = 0;
+        for(int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if(seen >= target && seen > 0) {
+                return i;
+            }
+        }
+        return histogram.length - 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%-12s games: %9d  games/sec: %12.0f  moves/sec: %14.0f  attempts mean: %8.2f  p50: %6d  p90: %6d  p99: %6d  max: %6d",
+            type, games, getGamesPerSecond(), getMovesPerSecond(), getMeanAttempts(),
+            getAttemptsPercentile(0.5), getAttemptsPercentile(0.9), getAttemptsPercentile(0.99), getAttemptsPercentile(1.0));
+    }
+}
@@ -0,0 +1,35 @@
+package memorygame.sim;
+
+/**
+ * A way of playing the pair game without a user interface.
+ * The simulation asks the strategy which cell to open next and then
+ * tells it what was on that cell and what the PairEngine answered.
+ * A strategy instance is used by one thread only, one game at a time.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public interface Strategy
+{
+    /**
+     * Prepare the strategy for a new game.
+     * @param rows The number of rows of the board.
+     * @param cols The number of columns of the board.
+     * @param seed A seed the strategy can use for its own random choices.
+     */
+    void newGame(int rows, int cols, long seed);
+
+    /**
+     * Choose the next cell to be opened.
+     * @return The index of the cell, counted row by row.
+     */
+    int nextCell();
+
+    /**
+     * Receive the outcome of the last opened cell.
+     * @param cell The index of the cell that was opened.
+     * @param card The card id on the cell, or -1 if it was already matched.
+     * @param result The result returned from PairEngine.checkResult.
+     */
+    void observe(int cell, int card, int result);
+}
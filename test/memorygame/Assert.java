@@ -0,0 +1,83 @@
+package memorygame;
+
+import java.util.Objects;
+
+/**
+ * The checks used by the tests. Every check throws an AssertionError
+ * with a message when it does not hold.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public final class Assert
+{
+    private Assert() {}
+
+    /**
+     * A block of a test which is expected to throw.
+     */
+    public interface Block
+    {
+        void run() throws Exception;
+    }
+
+    public static void assertTrue(boolean condition, String message)
+    {
+        if(!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    public static void assertFalse(boolean condition, String message)
+    {
+        assertTrue(!condition, message);
+    }
+
+    public static void assertEquals(long expected, long actual, String message)
+    {
+        if(expected != actual) {
+            throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    public static void assertEquals(Object expected, Object actual, String message)
+    {
+        if(!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    public static void assertNull(Object actual, String message)
+    {
+        if(actual != null) {
+            throw new AssertionError(message + ": expected null but was " + actual);
+        }
+    }
+
+    public static void assertNotNull(Object actual, String message)
+    {
+        if(actual == null) {
+            throw new AssertionError(message + ": expected a value but was null");
+        }
+    }
+
+    /**
+     * Check that a block throws an exception of a type.
+     * @param type The type of the expected exception.
+     * @param block The block to be run.
+     * @param message The message of the failure.
+     * @return The exception that was thrown.
+     */
+    public static <T extends Throwable> T assertThrows(Class<T> type, Block block, String message)
+    {
+        try {
+            block.run();
+        } catch (Throwable e) {
+            if(type.isInstance(e)) {
+                return type.cast(e);
+            }
+            throw new AssertionError(message + ": expected " + type.getSimpleName() + " but was " + e, e);
+        }
+        throw new AssertionError(message + ": expected " + type.getSimpleName() + " but nothing was thrown");
+    }
+}
@@ -0,0 +1,90 @@
+package memorygame;
+
+import static memorygame.Assert.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Tests of Dealer: a seed gives the same deal whether the board is dealt
+ * by one thread or in parallel, every card is dealt twice, and the deals
+ * of the boards recorded in journals and leaderboards do not change.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class DealerTest
+{
+    public void testParallelDealIsTheSequentialDeal()
+    {
+        int[] sizes = {2, 30, (1 << 14) + 2, Dealer.PARALLEL_THRESHOLD - 2, Dealer.PARALLEL_THRESHOLD,
+            Dealer.PARALLEL_THRESHOLD + 1002, 3 * Dealer.PARALLEL_THRESHOLD};
+        for(int size : sizes) {
+            int[] sequential = new int[size];
+            int[] parallel = new int[size];
+            Dealer.deal(sequential, 21);
+            Dealer.dealParallel(parallel, 21);
+            assertTrue(Arrays.equals(sequential, parallel), "parallel deal of " + size + " cells");
+            checkPairs(sequential);
+        }
+    }
+
+    public void testSeedGivesTheDealOfTheGenerator()
+    {
+        int[] seeded = new int[1000];
+        int[] generated = new int[1000];
+        short[] shorts = new short[1000];
+        Dealer.deal(seeded, 7);
+        Dealer.deal(generated, new SplittableRandom(7));
+        Dealer.deal(shorts, 7);
+        assertTrue(Arrays.equals(seeded, generated), "deal of the generator of the seed");
+        for(int i = 0; i < shorts.length; i++) {
+            assertEquals(seeded[i], shorts[i], "card " + i + " of the short deal");
+        }
+        Dealer.deal(generated, 8);
+        assertFalse(Arrays.equals(seeded, generated), "deal of another seed");
+    }
+
+    public void testDealsOfTheRecordedBoardsDoNotChange()
+    {
+        //The hashes of the deals of seed 1 when the seeds were first recorded in the journals.
+        int[][] hashes = {{12, 1504372859}, {1000, 2138984395}, {1 << 16, -1337572959},
+            {1 << 18, -115920099}, {(1 << 18) + 1002, 409972965}};
+        for(int[] hash : hashes) {
+            int[] cards = new int[hash[0]];
+            Dealer.deal(cards, 1);
+            assertEquals(hash[1], Arrays.hashCode(cards), "hash of the deal of " + hash[0] + " cells");
+        }
+        short[] shorts = new short[30];
+        Dealer.deal(shorts, 1);
+        assertEquals(-509486723, Arrays.hashCode(shorts), "hash of the short deal of 30 cells");
+    }
+
+    public void testLargeEngineIsTheDealOfItsSeed()
+    {
+        //512x512 is at the parallel threshold.
+        int[] cards = new int[512 * 512];
+        Dealer.deal(cards, 3);
+        PairEngine eng = new PairEngine(512, 512, 3);
+        SharedPairEngine shared = new SharedPairEngine(512, 512, 3);
+        for(int i = 0; i < cards.length; i++) {
+            if(cards[i] != eng.getFaceAt(i / 512, i % 512) || cards[i] != shared.getFaceAt(i / 512, i % 512)) {
+                throw new AssertionError("card " + i + " differs from the deal of the seed");
+            }
+        }
+    }
+
+    /**
+     * Check that every card of a deal is there twice.
+     */
+    private static void checkPairs(int[] cards)
+    {
+        int[] count = new int[cards.length / 2];
+        for(int card : cards) {
+            count[card]++;
+        }
+        for(int card = 0; card < count.length; card++) {
+            assertEquals(2, count[card], "cells of card " + card + " of " + cards.length + " cells");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package memorygame;
+
+import static memorygame.Assert.*;
+
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+
+/**
+ * Tests of DrawnFaces: the cache keeps at most its capacity of faces,
+ * and the faces used since the clock passed them are kept.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class DrawnFacesTest
+{
+    public void testActiveAndInactiveFacesAreKeptApart()
+    {
+        DrawnFaces faces = new DrawnFaces(4);
+        Icon active = new ImageIcon();
+        Icon inactive = new ImageIcon();
+        faces.put(100_000, false, active);
+        faces.put(100_000, true, inactive);
+        assertTrue(faces.get(100_000, false) == active, "active face");
+        assertTrue(faces.get(100_000, true) == inactive, "inactive face");
+        assertNull(faces.get(99_999, true), "face which was not drawn");
+        assertNull(faces.get(5_000_000, false), "face beyond the drawn ids");
+    }
+
+    public void testUsedFacesAreKept()
+    {
+        DrawnFaces faces = new DrawnFaces(3);
+        for(int card = 0; card < 3; card++) {
+            faces.put(card, false, new ImageIcon());
+        }
+        //Every face has been used once, so the clock passes all of them and drops the first.
+        faces.put(3, false, new ImageIcon());
+        assertNull(faces.get(0, false), "first face");
+        //2 and 3 are used again, 1 is not.
+        faces.get(2, false);
+        faces.get(3, false);
+        faces.put(4, false, new ImageIcon());
+        assertEquals(3, faces.size(), "faces");
+        assertNull(faces.get(1, false), "face which was not used again");
+        assertNotNull(faces.get(2, false), "face which was used again");
+        assertNotNull(faces.get(3, false), "face which was used again");
+    }
+
+    public void testShrinkingDropsTheFacesOfTheClock()
+    {
+        DrawnFaces faces = new DrawnFaces(4);
+        for(int card = 0; card < 4; card++) {
+            faces.put(card, false, new ImageIcon());
+        }
+        faces.setCapacity(2);
+        assertEquals(2, faces.size(), "faces after shrinking");
+        assertNull(faces.get(0, false), "first face");
+        assertNotNull(faces.get(3, false), "last face");
+        faces.setCapacity(8);
+        for(int card = 10; card < 20; card++) {
+            faces.put(card, true, new ImageIcon());
+        }
+        assertEquals(8, faces.size(), "faces after growing");
+        faces.clear();
+        assertEquals(0, faces.size(), "faces after clearing");
+        assertNull(faces.get(19, true), "face after clearing");
+    }
+}
@@ -0,0 +1,172 @@
+package memorygame;
+
+import static memorygame.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Tests of GameSnapshot: a saved game loads in the same state, and a
+ * snapshot which was cut off, damaged or of an unknown version is not
+ * loaded, while a snapshot of version 1 is.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class GameSnapshotTest
+{
+    //The offsets of the version, the checksum and the milliseconds in the file.
+    private final static int VERSION_AT = 4, CRC_AT = 12, MILLIS_AT = 24;
+
+    private final Path file;
+
+    public GameSnapshotTest() throws IOException
+    {
+        file = Files.createTempDirectory("snapshot").resolve("game.snapshot");
+    }
+
+    public void testShortBoardLoadsInTheSavedState() throws IOException
+    {
+        PairEngine eng = played(new PairEngine(BoardType.BEGINNER.getRows(), BoardType.BEGINNER.getCols(), 3));
+        eng.checkResult(0, 0);
+        checkRoundTrip(BoardType.BEGINNER, 12_345, eng);
+    }
+
+    public void testIntBoardLoadsInTheSavedState() throws IOException
+    {
+        checkRoundTrip(null, 0, played(new PairEngine(300, 300, 4)));
+    }
+
+    public void testLazyBoardLoadsInTheSavedState() throws IOException
+    {
+        checkRoundTrip(null, 99, played(PairEngine.lazy(1000, 1000, 5)));
+    }
+
+    public void testMissingFileIsNotLoaded() throws IOException
+    {
+        assertNull(GameSnapshot.load(file), "snapshot of a missing file");
+    }
+
+    public void testSaveReplacesTheOldSnapshot() throws IOException
+    {
+        GameSnapshot.save(file, BoardType.BEGINNER, 1, new PairEngine(2, 2, 1));
+        GameSnapshot.save(file, null, 2, new PairEngine(2, 4, 2));
+        GameSnapshot snapshot = GameSnapshot.load(file);
+        assertEquals(2, snapshot.getMillis(), "milliseconds");
+        assertEquals(4, snapshot.getEngine().getCols(), "columns");
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")), "the temporary file is left");
+    }
+
+    public void testSnapshotCutAtAnyByteIsNotLoaded() throws IOException
+    {
+        GameSnapshot.save(file, BoardType.BEGINNER, 500, played(new PairEngine(4, 4, 6)));
+        byte[] all = Files.readAllBytes(file);
+        for(int length = 0; length < all.length; length++) {
+            Files.write(file, Arrays.copyOf(all, length));
+            assertNull(GameSnapshot.load(file), "snapshot of " + length + " bytes");
+        }
+    }
+
+    public void testChecksumMismatchIsDetected() throws IOException
+    {
+        GameSnapshot.save(file, BoardType.BEGINNER, 500, played(new PairEngine(4, 4, 7)));
+        byte[] all = Files.readAllBytes(file);
+        for(int i = MILLIS_AT - 4; i < all.length; i++) {
+            byte[] damaged = all.clone();
+            damaged[i] ^= 0x10;
+            Files.write(file, damaged);
+            assertNull(GameSnapshot.load(file), "snapshot with byte " + i + " changed");
+        }
+    }
+
+    public void testUnknownVersionIsNotLoaded() throws IOException
+    {
+        GameSnapshot.save(file, BoardType.BEGINNER, 500, new PairEngine(4, 4, 8));
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        buffer.putInt(VERSION_AT, 3);
+        Files.write(file, buffer.array());
+        assertNull(GameSnapshot.load(file), "snapshot of version 3");
+    }
+
+    public void testVersionOneIsReadInSeconds() throws IOException
+    {
+        PairEngine eng = played(new PairEngine(4, 4, 9));
+        GameSnapshot.save(file, BoardType.BEGINNER, 0, eng);
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        buffer.putInt(VERSION_AT, 1).putInt(MILLIS_AT, 42);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), CRC_AT + 8, buffer.capacity() - CRC_AT - 8);
+        buffer.putLong(CRC_AT, crc.getValue());
+        Files.write(file, buffer.array());
+
+        GameSnapshot snapshot = GameSnapshot.load(file);
+        assertNotNull(snapshot, "snapshot of version 1");
+        assertEquals(42_000, snapshot.getMillis(), "milliseconds");
+        assertEquals(state(eng), state(snapshot.getEngine()), "state of the engine");
+    }
+
+    /**
+     * Save a game, load it and check that it is the same game.
+     */
+    private void checkRoundTrip(BoardType type, int millis, PairEngine eng) throws IOException
+    {
+        GameSnapshot.save(file, type, millis, eng);
+        GameSnapshot snapshot = GameSnapshot.load(file);
+        assertNotNull(snapshot, "saved snapshot");
+        assertEquals(type, snapshot.getBoardType(), "board type");
+        assertEquals(millis, snapshot.getMillis(), "milliseconds");
+        PairEngine loaded = snapshot.getEngine();
+        assertEquals(eng.isLazy(), loaded.isLazy(), "lazy");
+        assertEquals(state(eng), state(loaded), "state of the engine");
+        for(int r = 0; r < eng.getRows(); r += 7) {
+            for(int c = 0; c < eng.getCols(); c += 5) {
+                assertEquals(eng.getFaceAt(r, c), loaded.getFaceAt(r, c), "card at " + r + "," + c);
+                assertEquals(eng.getCardAt(r, c), loaded.getCardAt(r, c), "open card at " + r + "," + c);
+            }
+        }
+    }
+
+    /**
+     * Match the pairs of the first cards of the board and miss once,
+     * so that the state has every kind of counter.
+     */
+    private static PairEngine played(PairEngine eng)
+    {
+        int cols = eng.getCols();
+        int[] first = new int[3];
+        Arrays.fill(first, -1);
+        for(int i = 0; i < eng.getRows() * cols; i++) {
+            int card = eng.getFaceAt(i / cols, i % cols);
+            if(card < first.length) {
+                if(first[card] < 0) {
+                    first[card] = i;
+                } else {
+                    eng.checkResult(first[card] / cols, first[card] % cols);
+                    eng.checkResult(i / cols, i % cols);
+                }
+            }
+        }
+        int a = eng.getRows() * cols - 1;
+        int b = a - 1;
+        if(eng.getFaceAt(a / cols, a % cols) != eng.getFaceAt(b / cols, b % cols)) {
+            eng.checkResult(a / cols, a % cols);
+            eng.checkResult(b / cols, b % cols);
+        }
+        return eng;
+    }
+
+    /**
+     * Return the state written by an engine.
+     */
+    private static ByteBuffer state(PairEngine eng)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(eng.stateSize());
+        eng.writeState(buffer);
+        buffer.flip();
+        return buffer;
+    }
+}
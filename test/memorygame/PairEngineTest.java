@@ -0,0 +1,87 @@
+package memorygame;
+
+import static memorygame.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests of the moves of PairEngine: a batch of cells gives the results
+ * and the events of the same moves made one by one, and a rejected move
+ * reports the cell that was asked for.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class PairEngineTest
+{
+    public void testBatchIsTheSameAsSingleMoves()
+    {
+        int[] cells = {0, 0, 1, -1, 16, 2, 3, Integer.MIN_VALUE, 5, 4, Integer.MAX_VALUE, 7, 6, 8, 9};
+        PairEngine single = new PairEngine(4, 4, 2);
+        PairEngine batch = new PairEngine(4, 4, 2);
+        List<String> singleEvents = record(single);
+        List<String> batchEvents = record(batch);
+
+        int[] expected = new int[cells.length];
+        for(int i = 0; i < cells.length; i++) {
+            int cell = cells[i];
+            boolean outside = cell < 0 || cell >= 16;
+            expected[i] = outside ? single.checkResult(-1, 0) : single.checkResult(cell / 4, cell % 4);
+            if(outside) {
+                //The single move reports the row -1 that it asked for, the batch has no row.
+                singleEvents.set(singleEvents.size() - 1, "rejected " + PairEngine.OUTSIDE + "," + PairEngine.OUTSIDE);
+            }
+        }
+        int[] results = new int[cells.length];
+        batch.checkCells(cells, cells.length, results);
+
+        assertEquals(Arrays.toString(expected), Arrays.toString(results), "results");
+        assertEquals(singleEvents, batchEvents, "events");
+        assertEquals(single.getMoves(), batch.getMoves(), "moves");
+        assertEquals(single.getMatchedPairs(), batch.getMatchedPairs(), "matched pairs");
+    }
+
+    public void testRejectedMoveReportsTheAskedCell()
+    {
+        PairEngine eng = new PairEngine(2, 2, 1);
+        List<String> events = record(eng);
+        assertEquals(PairEngine.REJECTED, eng.checkResult(5, -3), "cell out of the board");
+        eng.checkCells(new int[] {4}, 1, new int[1]);
+        assertEquals(PairEngine.FLIPPED, eng.checkResult(1, 1), "first card");
+        assertEquals(PairEngine.REJECTED, eng.checkResult(1, 1), "open card");
+        assertEquals(Arrays.asList("rejected 5,-3", "rejected " + PairEngine.OUTSIDE + "," + PairEngine.OUTSIDE,
+            "flipped 3", "rejected 1,1"), events, "events");
+    }
+
+    /**
+     * Record the events of an engine as text.
+     */
+    private static List<String> record(PairEngine eng)
+    {
+        List<String> events = new ArrayList<>();
+        eng.addListener(new EngineListener() {
+            @Override
+            public void flipped(int cell, int card) {
+                events.add("flipped " + cell);
+            }
+
+            @Override
+            public void matched(int firstCell, int secondCell, int card, int attempts) {
+                events.add("matched " + firstCell + "," + secondCell + "," + card + "," + attempts);
+            }
+
+            @Override
+            public void mismatched(int firstCell, int firstCard, int secondCell, int secondCard, int attempts) {
+                events.add("mismatched " + firstCell + "," + secondCell + "," + attempts);
+            }
+
+            @Override
+            public void rejected(int row, int col) {
+                events.add("rejected " + row + "," + col);
+            }
+        });
+        return events;
+    }
+}
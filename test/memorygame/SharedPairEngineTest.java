@@ -0,0 +1,68 @@
+package memorygame;
+
+import static memorygame.Assert.*;
+
+/**
+ * Tests of SharedPairEngine: a cell held or matched by one player cannot
+ * be opened by another, and the board is the board of a PairEngine with
+ * the same seed.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class SharedPairEngineTest
+{
+    public void testHeldCellIsRejectedForTheOtherPlayers()
+    {
+        SharedPairEngine board = new SharedPairEngine(4, 4, 1);
+        int[] pair = pairOf(board, 0);
+        int other = pairOf(board, 1)[0];
+        SharedPairEngine.Player first = board.join();
+        SharedPairEngine.Player second = board.join();
+
+        assertEquals(PairEngine.FLIPPED, first.checkResult(pair[0] / 4, pair[0] % 4), "first card of the first player");
+        assertEquals(PairEngine.REJECTED, second.checkResult(pair[0] / 4, pair[0] % 4), "held card for the second player");
+        assertEquals(PairEngine.FLIPPED, second.checkResult(pair[1] / 4, pair[1] % 4), "partner for the second player");
+        assertEquals(PairEngine.REJECTED, first.checkResult(pair[1] / 4, pair[1] % 4), "partner held by the second player");
+        second.release();
+        assertEquals(PairEngine.MATCHED, first.checkResult(pair[1] / 4, pair[1] % 4), "partner after the release");
+        assertEquals(PairEngine.REJECTED, second.checkResult(pair[0] / 4, pair[0] % 4), "matched card");
+        assertEquals(7, board.getRemainingPairs(), "remaining pairs");
+
+        assertEquals(PairEngine.FLIPPED, second.checkResult(other / 4, other % 4), "card after a match");
+        assertEquals(PairEngine.REJECTED, second.checkResult(pair[1] / 4, pair[1] % 4), "matched second card");
+        assertEquals(PairEngine.REJECTED, second.checkResult(4, 0), "card out of the board");
+    }
+
+    public void testBoardIsThePairEngineBoard()
+    {
+        //300x300 stores the cards as ints, 4x4 as shorts.
+        int[][] sizes = {{4, 4}, {300, 300}};
+        for(int[] size : sizes) {
+            SharedPairEngine board = new SharedPairEngine(size[0], size[1], 9);
+            PairEngine eng = new PairEngine(size[0], size[1], 9);
+            for(int r = 0; r < size[0]; r++) {
+                for(int c = 0; c < size[1]; c++) {
+                    if(board.getFaceAt(r, c) != eng.getFaceAt(r, c)) {
+                        throw new AssertionError("card at " + r + "," + c + " of " + size[0] + "x" + size[1]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the two cells of a card.
+     */
+    private static int[] pairOf(SharedPairEngine board, int card)
+    {
+        int[] pair = {-1, -1};
+        int cols = board.getCols();
+        for(int cell = 0; cell < board.getRows() * cols; cell++) {
+            if(board.getFaceAt(cell / cols, cell % cols) == card) {
+                pair[pair[0] < 0 ? 0 : 1] = cell;
+            }
+        }
+        return pair;
+    }
+}
@@ -0,0 +1,76 @@
+package memorygame;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs the tests of the game without a test framework. Every class of
+ * the test tree whose name ends with "Test" is a test class, and every
+ * public method of it whose name starts with "test" is a test, which is
+ * run on a new instance of the class. A test fails when it throws.
+ * <p>
+ * Usage: java -cp test-classes:classes memorygame.TestRunner &lt;test classes directory&gt;
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class TestRunner
+{
+    private TestRunner() {}
+
+    public static void main(String[] args) throws Exception
+    {
+        if(args.length != 1) {
+            System.err.println("Usage: TestRunner <test classes directory>");
+            System.exit(1);
+        }
+        Files.createDirectories(Paths.get(System.getProperty("java.io.tmpdir")));
+        int run = 0;
+        int failed = 0;
+        for(String name : findTestClasses(Paths.get(args[0]))) {
+            Class<?> type = Class.forName(name);
+            for(Method method : type.getMethods()) {
+                if(!method.getName().startsWith("test") || method.getParameterCount() != 0
+                    || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                run++;
+                try {
+                    method.invoke(type.getDeclaredConstructor().newInstance());
+                } catch (InvocationTargetException e) {
+                    failed++;
+                    System.out.println("FAILED " + name + "." + method.getName());
+                    e.getCause().printStackTrace(System.out);
+                }
+            }
+        }
+        System.out.println("Tests run: " + run + ", failures: " + failed);
+        if(failed > 0 || run == 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Find the names of the test classes in a directory of class files.
+     * @param root The directory of the compiled tests.
+     * @return The names of the classes, in alphabetical order.
+     */
+    private static List<String> findTestClasses(Path root) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.map(file -> root.relativize(file).toString())
+                .filter(file -> file.endsWith("Test.class") && !file.contains("$"))
+                .map(file -> file.substring(0, file.length() - ".class".length()).replace(root.getFileSystem().getSeparator(), "."))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package memorygame.journal;
+
+import static memorygame.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import memorygame.BoardType;
+import memorygame.PairEngine;
+
+/**
+ * Tests of MoveJournal and JournalReplayer: a journal replays the games
+ * that were recorded, and a journal which was cut off or damaged at the
+ * end replays the games before the damage. A game on a lazy board is
+ * replayed on a lazy board.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class MoveJournalTest
+{
+    private final Path file;
+
+    public MoveJournalTest() throws IOException
+    {
+        file = Files.createTempDirectory("journal").resolve("games.journal");
+    }
+
+    public void testReplayGivesTheRecordedGames() throws IOException
+    {
+        List<String> recorded = new ArrayList<>();
+        try (MoveJournal journal = new MoveJournal(file)) {
+            PairEngine won = new PairEngine(BoardType.BEGINNER.getRows(), BoardType.BEGINNER.getCols(), 11);
+            journal.startGame(BoardType.BEGINNER, won.getRows(), won.getCols(), won.getSeed());
+            for(int[] pair : pairs(won)) {
+                play(journal, won, pair[0], recorded);
+                play(journal, won, pair[1], recorded);
+            }
+            journal.endGame();
+            assertTrue(won.isWon(), "the first game is won");
+
+            PairEngine open = new PairEngine(2, 4, 12);
+            journal.startGame(null, 2, 4, 12);
+            int[] pair = pairs(open).get(0);
+            int other = pairs(open).get(1)[0];
+            play(journal, open, pair[0], recorded);
+            play(journal, open, pair[0], recorded);
+            play(journal, open, other, recorded);
+            play(journal, open, pair[0], recorded);
+            play(journal, open, pair[1], recorded);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        List<Object> ended = new ArrayList<>();
+        long games = JournalReplayer.replay(file, new ReplayListener() {
+            @Override
+            public void gameStarted(BoardType type, long startMillis, PairEngine eng) {
+                ended.add(type);
+                ended.add(eng.getSeed());
+            }
+
+            @Override
+            public void moveReplayed(int r, int c, int result, long millis) {
+                replayed.add(r + "," + c + "=" + result);
+            }
+
+            @Override
+            public void gameEnded(PairEngine eng, long millis) {
+                ended.add(eng.isWon());
+                ended.add(eng.getMoves());
+            }
+        });
+        assertEquals(2, games, "games");
+        assertEquals(recorded, replayed, "moves");
+        assertEquals(Arrays.asList(BoardType.BEGINNER, 11L, true, recorded.size() - 5, null, 12L, false, 4), ended, "games");
+    }
+
+    public void testLazyGameIsReplayedOnItsOwnDeal() throws IOException
+    {
+        //A seed gives different boards to a lazy and a stored engine.
+        PairEngine[] engines = {PairEngine.lazy(6, 6, 5), new PairEngine(6, 6, 5)};
+        try (MoveJournal journal = new MoveJournal(file)) {
+            for(PairEngine eng : engines) {
+                journal.startGame(null, eng);
+                for(int[] pair : pairs(eng)) {
+                    journal.recordMove(pair[0] / 6, pair[0] % 6);
+                    journal.recordMove(pair[1] / 6, pair[1] % 6);
+                }
+                journal.endGame();
+            }
+        }
+        List<Boolean> replayed = new ArrayList<>();
+        JournalReplayer.replay(file, new ReplayListener() {
+            @Override
+            public void gameEnded(PairEngine eng, long millis) {
+                replayed.add(eng.isLazy());
+                replayed.add(eng.isWon());
+            }
+        });
+        assertEquals(Arrays.asList(true, true, false, true), replayed, "lazy and won games");
+    }
+
+    public void testEmptyJournalHasNoGames() throws IOException
+    {
+        new MoveJournal(file).close();
+        assertEquals(0, JournalReplayer.replay(file, new ReplayListener() {}), "games");
+    }
+
+    public void testGameCutAtAnyByteIsSkipped() throws IOException
+    {
+        try (MoveJournal journal = new MoveJournal(file)) {
+            recordGame(journal, 2, 2, 7, new int[] {0, 3});
+        }
+        int first = (int)Files.size(file);
+        try (MoveJournal journal = new MoveJournal(file)) {
+            //Far cells, so that the moves are varints of several bytes.
+            recordGame(journal, 20, 20, 9, new int[] {0, 399, 1});
+        }
+        byte[] all = Files.readAllBytes(file);
+        for(int length = 8; length < all.length; length++) {
+            Path cut = file.resolveSibling("cut.journal");
+            Files.write(cut, Arrays.copyOf(all, length));
+            assertEquals(length < first ? 0 : 1, JournalReplayer.replay(cut, new ReplayListener() {}), "games of " + length + " bytes");
+        }
+    }
+
+    public void testFileCutInTheHeaderIsRejected() throws IOException
+    {
+        new MoveJournal(file).close();
+        Files.write(file, Arrays.copyOf(Files.readAllBytes(file), 6));
+        assertThrows(IOException.class, () -> JournalReplayer.replay(file, new ReplayListener() {}), "header of 6 bytes");
+    }
+
+    public void testDamagedGameHeaderStopsTheReplay() throws IOException
+    {
+        long[][] headers = {
+            {BoardType.values().length + 1, 2, 2},
+            {0, 3, 3},
+            {0, 0, 2},
+            {0, 1L << 40, 2},
+            {0, 70_000, 70_000},
+        };
+        for(long[] header : headers) {
+            Files.deleteIfExists(file);
+            try (MoveJournal journal = new MoveJournal(file)) {
+                recordGame(journal, 2, 2, 7, new int[] {0, 3});
+            }
+            ByteBuffer game = ByteBuffer.allocate(64);
+            game.put(MoveJournal.GAME).putLong(1);
+            putVarint(game, header[0]);
+            putVarint(game, header[1]);
+            putVarint(game, header[2]);
+            putVarint(game, 0);
+            putVarint(game, 0);
+            Files.write(file, Arrays.copyOf(game.array(), game.position()), StandardOpenOption.APPEND);
+            assertEquals(1, JournalReplayer.replay(file, new ReplayListener() {}), "games before " + Arrays.toString(header));
+        }
+    }
+
+    public void testZigzagRoundTrip()
+    {
+        assertEquals(0, MoveJournal.zigzag(0), "zigzag of 0");
+        assertEquals(1, MoveJournal.zigzag(-1), "zigzag of -1");
+        assertEquals(2, MoveJournal.zigzag(1), "zigzag of 1");
+        assertEquals(127, MoveJournal.zigzag(-64), "zigzag of -64");
+        for(long value : new long[] {63, -65, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(value, MoveJournal.unzigzag(MoveJournal.zigzag(value)), "unzigzag of zigzag of " + value);
+        }
+    }
+
+    /**
+     * Record a game whose moves are the cells of an array.
+     */
+    private static void recordGame(MoveJournal journal, int rows, int cols, long seed, int[] cells) throws IOException
+    {
+        journal.startGame(null, rows, cols, seed);
+        for(int cell : cells) {
+            journal.recordMove(cell / cols, cell % cols);
+        }
+        journal.endGame();
+    }
+
+    /**
+     * Record a move and play it, as the game does.
+     */
+    private static void play(MoveJournal journal, PairEngine eng, int cell, List<String> recorded) throws IOException
+    {
+        int r = cell / eng.getCols();
+        int c = cell % eng.getCols();
+        journal.recordMove(r, c);
+        recorded.add(r + "," + c + "=" + eng.checkResult(r, c));
+    }
+
+    /**
+     * Return the two cells of every card of a board.
+     */
+    private static List<int[]> pairs(PairEngine eng)
+    {
+        int cells = eng.getRows() * eng.getCols();
+        int[][] pairs = new int[cells / 2][];
+        for(int i = 0; i < cells; i++) {
+            int card = eng.getFaceAt(i / eng.getCols(), i % eng.getCols());
+            if(pairs[card] == null) {
+                pairs[card] = new int[] {i, -1};
+            } else {
+                pairs[card][1] = i;
+            }
+        }
+        return Arrays.asList(pairs);
+    }
+
+    private static void putVarint(ByteBuffer buffer, long value)
+    {
+        while((value & ~0x7FL) != 0) {
+            buffer.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+}
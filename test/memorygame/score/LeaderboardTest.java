@@ -0,0 +1,234 @@
+package memorygame.score;
+
+import static memorygame.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import memorygame.BoardType;
+
+/**
+ * Tests of Leaderboard: the results of a leaderboard are the same after
+ * it is opened again, also after a compaction, a log which was cut off
+ * loses only its last record, and a log which cannot be read is kept.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class LeaderboardTest
+{
+    //The size of the log header and the offsets of the versions and the index checksum.
+    private final static int LOG_HEADER_SIZE = 16, VERSION_AT = 4, INDEX_CRC_AT = 12, INDEX_PAYLOAD_AT = 20;
+
+    private final Path logFile, indexFile;
+
+    public LeaderboardTest() throws IOException
+    {
+        logFile = Files.createTempDirectory("leaderboard").resolve("scores.log");
+        indexFile = logFile.resolveSibling("scores.log.index");
+    }
+
+    public void testReopenedLeaderboardHasTheRecordedResults() throws IOException
+    {
+        List<String> before;
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            recordScores(leaderboard, 0, 30);
+            before = summary(leaderboard);
+        }
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            assertEquals(before, summary(leaderboard), "results after opening again");
+        }
+    }
+
+    public void testCompactionKeepsTheResultsAndArchivesTheLog() throws IOException
+    {
+        List<String> before;
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            recordScores(leaderboard, 0, 20);
+            leaderboard.compact();
+            recordScores(leaderboard, 20, 5);
+            before = summary(leaderboard);
+        }
+        assertEquals(LOG_HEADER_SIZE + 5 * Leaderboard.RECORD_SIZE, Files.size(logFile), "size of the new log");
+        Path archive = logFile.resolveSibling("scores.log.0");
+        assertEquals(LOG_HEADER_SIZE + 20 * Leaderboard.RECORD_SIZE, Files.size(archive), "size of the archive");
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(archive));
+        records.position(LOG_HEADER_SIZE);
+        for(int i = 0; i < 20; i++) {
+            assertEquals(score(i).toString(), String.valueOf(Leaderboard.getRecord(records, 2)), "archived result " + i);
+        }
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            assertEquals(before, summary(leaderboard), "results after opening again");
+        }
+    }
+
+    public void testRecordCutAtAnyByteIsDropped() throws IOException
+    {
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            recordScores(leaderboard, 0, 3);
+        }
+        byte[] all = Files.readAllBytes(logFile);
+        int kept = LOG_HEADER_SIZE + 2 * Leaderboard.RECORD_SIZE;
+        for(int length = kept; length < all.length; length++) {
+            Files.write(logFile, Arrays.copyOf(all, length));
+            try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+                assertEquals(2, total(leaderboard), "results of a log of " + length + " bytes");
+            }
+            assertEquals(kept, Files.size(logFile), "size of the log of " + length + " bytes");
+        }
+    }
+
+    public void testChecksumMismatchDropsTheRecord() throws IOException
+    {
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            recordScores(leaderboard, 0, 3);
+        }
+        byte[] all = Files.readAllBytes(logFile);
+        all[all.length - 10] ^= 0x01;
+        Files.write(logFile, all);
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            assertEquals(2, total(leaderboard), "results with a damaged last record");
+        }
+    }
+
+    public void testDamagedIndexIsIgnored() throws IOException
+    {
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            recordScores(leaderboard, 0, 4);
+            leaderboard.compact();
+            recordScores(leaderboard, 4, 2);
+        }
+        byte[] index = Files.readAllBytes(indexFile);
+        index[index.length - 1] ^= 0x01;
+        Files.write(indexFile, index);
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            assertEquals(2, total(leaderboard), "results of the log without the index");
+        }
+    }
+
+    public void testLogCutInTheHeaderIsMovedAside() throws IOException
+    {
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            recordScores(leaderboard, 0, 1);
+        }
+        byte[] all = Files.readAllBytes(logFile);
+        for(int length = 1; length < LOG_HEADER_SIZE; length++) {
+            Files.write(logFile, Arrays.copyOf(all, length));
+            try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+                assertEquals(0, total(leaderboard), "results of a header of " + length + " bytes");
+            }
+            Path bad = logFile.resolveSibling(length == 1 ? "scores.log.bad" : "scores.log.bad." + (length - 1));
+            assertEquals(length, Files.size(bad), "size of the moved log of " + length + " bytes");
+            assertEquals(LOG_HEADER_SIZE, Files.size(logFile), "size of the new log");
+        }
+    }
+
+    public void testUnknownVersionIsMovedAside() throws IOException
+    {
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            recordScores(leaderboard, 0, 3);
+        }
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(logFile));
+        log.putInt(VERSION_AT, 9);
+        Files.write(logFile, log.array());
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            assertEquals(0, total(leaderboard), "results of a log of version 9");
+            leaderboard.record(score(3));
+        }
+        assertTrue(Arrays.equals(log.array(), Files.readAllBytes(logFile.resolveSibling("scores.log.bad"))), "the log of version 9 is kept");
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            assertEquals(1, total(leaderboard), "results of the new log");
+        }
+    }
+
+    public void testVersionOneIsUpgradedToMilliseconds() throws IOException
+    {
+        //Files of version 1 store seconds, which are written here as the milliseconds of version 2.
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            recordScores(leaderboard, 0, 10);
+            leaderboard.compact();
+            recordScores(leaderboard, 10, 3);
+        }
+        setVersion(logFile, 1);
+        setVersion(indexFile, 1);
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        CRC32 crc = new CRC32();
+        crc.update(index.array(), INDEX_PAYLOAD_AT, index.capacity() - INDEX_PAYLOAD_AT);
+        index.putLong(INDEX_CRC_AT, crc.getValue());
+        Files.write(indexFile, index.array());
+
+        List<Score> expected = new ArrayList<>();
+        for(int i = 0; i < 13; i++) {
+            Score score = score(i);
+            if(score.getType() == BoardType.BEGINNER) {
+                expected.add(new Score(score.getType(), score.getSeed(), score.getAttempts(), score.getMillis() * 1000, score.getDate()));
+            }
+        }
+        expected.sort(null);
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            assertEquals(expected.toString(), leaderboard.getTop(BoardType.BEGINNER, 100).toString(), "results in milliseconds");
+        }
+
+        assertEquals(2, ByteBuffer.wrap(Files.readAllBytes(logFile)).getInt(VERSION_AT), "version of the log");
+        assertEquals(2, ByteBuffer.wrap(Files.readAllBytes(indexFile)).getInt(VERSION_AT), "version of the index");
+        try (Leaderboard leaderboard = new Leaderboard(logFile)) {
+            assertEquals(expected.toString(), leaderboard.getTop(BoardType.BEGINNER, 100).toString(), "results after the upgrade");
+        }
+    }
+
+    /**
+     * Record a number of results, with the result of every number given by score.
+     */
+    private static void recordScores(Leaderboard leaderboard, int from, int count) throws IOException
+    {
+        for(int i = from; i < from + count; i++) {
+            leaderboard.record(score(i));
+        }
+    }
+
+    /**
+     * Return a result made from a number, on one of the first three levels.
+     */
+    private static Score score(int i)
+    {
+        return new Score(BoardType.values()[i % 3], 1000 + i, 8 + (i * 7) % 13, 2000 + 37 * i, 1_000_000L + i);
+    }
+
+    /**
+     * Return the number of results of the first three levels.
+     */
+    private static long total(Leaderboard leaderboard)
+    {
+        return leaderboard.getCount(BoardType.values()[0]) + leaderboard.getCount(BoardType.values()[1])
+            + leaderboard.getCount(BoardType.values()[2]);
+    }
+
+    /**
+     * Return everything a leaderboard answers about the first three levels.
+     */
+    private static List<String> summary(Leaderboard leaderboard)
+    {
+        List<String> summary = new ArrayList<>();
+        for(int i = 0; i < 3; i++) {
+            BoardType type = BoardType.values()[i];
+            summary.add(type + " count " + leaderboard.getCount(type));
+            summary.add(String.valueOf(leaderboard.getTop(type, 100)));
+            for(int attempts = 0; attempts < 25; attempts++) {
+                summary.add(type + " rank of " + attempts + " " + leaderboard.getPercentileRank(type, attempts));
+            }
+        }
+        return summary;
+    }
+
+    private static void setVersion(Path file, int version) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        buffer.putInt(VERSION_AT, version);
+        Files.write(file, buffer.array());
+    }
+}
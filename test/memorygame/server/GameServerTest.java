@@ -0,0 +1,75 @@
+package memorygame.server;
+
+import static memorygame.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tests of the connections of GameServer: commands are answered line by
+ * line, and a connection which sends a line longer than MAX_LINE is
+ * answered with an error and closed.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class GameServerTest
+{
+    public void testCommandsAreAnswered() throws IOException
+    {
+        try (GameServer server = new GameServer(0, 10, 100, 60_000);
+             Socket socket = connect(server)) {
+            BufferedReader in = reader(socket);
+            send(socket, "NEW 2 2 1\r\nSTATS 1\nFLIP 1 5 5\n");
+            assertEquals("OK 1", in.readLine(), "answer of NEW");
+            assertEquals("OK 0 2 0 0 0", in.readLine(), "answer of STATS");
+            assertEquals("OK 2 -1", in.readLine(), "answer of FLIP");
+            send(socket, "QUIT\n");
+            assertNull(in.readLine(), "answer of QUIT");
+        }
+    }
+
+    public void testLongLineClosesTheConnection() throws IOException
+    {
+        try (GameServer server = new GameServer(0, 10, 100, 60_000);
+             Socket socket = connect(server)) {
+            BufferedReader in = reader(socket);
+            //A line of the longest length is still a command.
+            char[] spaces = new char[GameServer.MAX_LINE - "NEW 2 2".length()];
+            Arrays.fill(spaces, ' ');
+            send(socket, "NEW 2 2" + new String(spaces) + "\n");
+            assertEquals("OK 1", in.readLine(), "answer of the longest line");
+
+            byte[] line = new byte[GameServer.MAX_LINE + 1];
+            Arrays.fill(line, (byte)'x');
+            socket.getOutputStream().write(line);
+            assertEquals("ERR line longer than " + GameServer.MAX_LINE + " bytes", in.readLine(), "answer of the long line");
+            assertNull(in.readLine(), "the connection is closed");
+        }
+    }
+
+    private static Socket connect(GameServer server) throws IOException
+    {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException
+    {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+    }
+
+    private static void send(Socket socket, String text) throws IOException
+    {
+        OutputStream out = socket.getOutputStream();
+        out.write(text.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
@@ -0,0 +1,70 @@
+package memorygame.server;
+
+import static memorygame.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of SessionRegistry: the number of sessions never exceeds the
+ * limit, also when many threads create sessions at the same time, and
+ * the places of removed sessions can be taken again.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class SessionRegistryTest
+{
+    public void testConcurrentCreationsKeepTheLimit() throws InterruptedException
+    {
+        for(int round = 0; round < 20; round++) {
+            SessionRegistry registry = new SessionRegistry(50, 100, 60_000);
+            AtomicInteger created = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for(int t = 0; t < 8; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        for(int i = 0; i < 20; i++) {
+                            registry.create(4, 4, i);
+                            created.incrementAndGet();
+                        }
+                    } catch (IllegalStateException | InterruptedException e) {
+                        //The limit has been reached.
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for(Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(50, created.get(), "sessions created in round " + round);
+            assertEquals(50, registry.size(), "sessions in round " + round);
+        }
+    }
+
+    public void testRemovedPlacesCanBeTakenAgain()
+    {
+        SessionRegistry registry = new SessionRegistry(2, 100, 0);
+        Session first = registry.create(2, 2, 1);
+        registry.create(2, 2, 2);
+        assertThrows(IllegalStateException.class, () -> registry.create(2, 2, 3), "third session");
+        assertTrue(registry.remove(first.getId()), "first session removed");
+        assertFalse(registry.remove(first.getId()), "first session removed twice");
+        Session third = registry.create(2, 2, 3);
+        assertEquals(2, registry.evictIdle(), "evicted sessions");
+        assertNull(registry.get(third.getId()), "evicted session");
+
+        //A board which cannot be created does not keep its place.
+        assertThrows(IllegalArgumentException.class, () -> registry.create(3, 3, 4), "board of an odd size");
+        assertThrows(IllegalArgumentException.class, () -> registry.create(20, 20, 4), "board too large");
+        registry.create(2, 2, 5);
+        registry.create(2, 2, 6);
+        assertThrows(IllegalStateException.class, () -> registry.create(2, 2, 7), "third session after the eviction");
+    }
+}
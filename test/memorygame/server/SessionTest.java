@@ -0,0 +1,43 @@
+package memorygame.server;
+
+import static memorygame.Assert.*;
+
+import memorygame.PairEngine;
+
+/**
+ * Tests of Session: a single flip and a batch of flips answer the same
+ * result and card for the same moves.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class SessionTest
+{
+    public void testSingleAndBatchFlipsGiveTheSameCards()
+    {
+        PairEngine board = new PairEngine(4, 4, 6);
+        int first = 0;
+        int partner = 1;
+        while(board.getFaceAt(partner / 4, partner % 4) != board.getFaceAt(0, 0)) {
+            partner++;
+        }
+        int other = partner == 1 ? 2 : 1;
+        //A pair, an open card twice, a matched card, a miss and cells out of the board.
+        int[] cells = {first, partner, first, other, other, partner, first, -1, 16};
+
+        Session single = new Session(1, new PairEngine(4, 4, 6));
+        Session batch = new Session(2, new PairEngine(4, 4, 6));
+        int[] results = new int[cells.length];
+        int[] cards = new int[cells.length];
+        batch.flip(cells, cells.length, results, cards);
+        for(int i = 0; i < cells.length; i++) {
+            int cell = cells[i];
+            long packed = cell < 0 || cell >= 16 ? single.flip(-1, 0) : single.flip(cell / 4, cell % 4);
+            assertEquals(results[i], (int)(packed >> 32), "result of move " + i);
+            assertEquals(cards[i], (int)packed, "card of move " + i);
+            int expected = results[i] == PairEngine.REJECTED ? -1 : board.getFaceAt(cell / 4, cell % 4);
+            assertEquals(expected, cards[i], "card of move " + i);
+        }
+        assertEquals(single.stats(), batch.stats(), "stats");
+    }
+}
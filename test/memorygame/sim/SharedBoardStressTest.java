@@ -0,0 +1,20 @@
+package memorygame.sim;
+
+import static memorygame.Assert.*;
+
+/**
+ * Runs the stress test of SharedPairEngine: players on several threads
+ * play one board until it is won, and no pair may be claimed twice or lost.
+ *
+ * @author Daniel Krastev
+ * @version 01/04/2016
+ */
+public class SharedBoardStressTest
+{
+    public void testEveryPairIsClaimedOnce() throws Exception
+    {
+        for(int threads = 1; threads <= 16; threads *= 2) {
+            assertTrue(SharedBoardStress.run(threads, 100, 120), "claims of " + threads + " players");
+        }
+    }
+}